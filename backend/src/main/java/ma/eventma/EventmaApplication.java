@@ -2,8 +2,10 @@ package ma.eventma;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EventmaApplication {
   public static void main(String[] args) {
     SpringApplication.run(EventmaApplication.class, args);
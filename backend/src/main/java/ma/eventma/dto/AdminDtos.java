@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 public class AdminDtos {
@@ -28,4 +29,20 @@ public class AdminDtos {
       String telephone,
       Set<String> roles
   ) {}
+
+  /** Offer whose places_disponibles does not match places_initiales minus the seats of its reservations. */
+  public record OfferDrift(Long offerId, Integer placesInitiales, Integer placesDisponibles, Integer placesAttendues, boolean corrigee) {}
+
+  /** Progress / result of the offers vs reservations reconciliation. */
+  public record ReconciliationReport(
+      String statut,
+      boolean correction,
+      LocalDateTime debut,
+      LocalDateTime fin,
+      long dureeMs,
+      long offresAnalysees,
+      long ecarts,
+      long corrections,
+      List<OfferDrift> exemples
+  ) {}
 }
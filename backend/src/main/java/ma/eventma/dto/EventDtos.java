@@ -3,8 +3,10 @@ package ma.eventma.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 public class EventDtos {
 
@@ -24,9 +26,33 @@ public class EventDtos {
       Long regionId,
       String regionNom,
       Long organisateurId,
-      String organisateurNomComplet
+      String organisateurNomComplet,
+      BigDecimal prixMin,
+      BigDecimal prixMax,
+      Integer placesRestantes,
+      Boolean complet
   ) {}
 
+  /**
+   * One keyset page of search results; {@code nextCursor} is null on the last page.
+   * {@code facets} is null unless requested (and while the search index is still loading).
+   */
+  public record EventPage(List<EventSummary> items, String nextCursor, Facets facets) {}
+
+  /**
+   * Hit counts for the current search. Each facet ignores its own filter, so the counts of a region
+   * facet say how many results picking that region would give.
+   */
+  public record Facets(List<FacetCount> regions, List<FacetCount> categories, List<DateBucket> semaines, List<DateBucket> mois) {}
+
+  public record FacetCount(Long id, String nom, long count) {}
+
+  /** {@code debut}/{@code fin} inclusive: Monday to Sunday for weeks, first to last day for months. */
+  public record DateBucket(LocalDate debut, LocalDate fin, long count) {}
+
+  /** Type-ahead entry; {@code type} is TITRE or LIEU, {@code eventId} is set for titles only. */
+  public record Suggestion(String texte, String type, Long eventId, Integer nbVues) {}
+
   /** Used by event detail page. */
   public record EventDetail(
       Long id,
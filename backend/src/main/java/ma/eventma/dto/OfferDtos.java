@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 public class OfferDtos {
 
@@ -18,7 +19,20 @@ public class OfferDtos {
       Integer sold,
       LocalDate dateExpiration,
       Long eventId,
-      String eventTitre
+      String eventTitre,
+      Boolean fileAttente
+  ) {}
+
+  /**
+   * Offers still on sale for one event of a listing, with what a card shows: lowest price among offers with
+   * seats left (null when sold out), seats left over all offers and the nearest expiry.
+   */
+  public record EventOffers(
+      Long eventId,
+      BigDecimal prixMin,
+      int placesRestantes,
+      LocalDate prochaineExpiration,
+      List<OfferSummary> offres
   ) {}
 
   /** Existing name in the generated front mock. */
@@ -27,7 +41,8 @@ public class OfferDtos {
       @NotBlank String typeBillet,
       @NotNull BigDecimal prix,
       @NotNull Integer placesInitiales,
-      @NotNull LocalDate dateExpiration
+      @NotNull LocalDate dateExpiration,
+      Boolean fileAttente
   ) {}
 
   /** Aliases expected by services/controllers. */
@@ -36,7 +51,8 @@ public class OfferDtos {
       @NotBlank String typeBillet,
       @NotNull BigDecimal prix,
       @NotNull Integer placesInitiales,
-      @NotNull LocalDate dateExpiration
+      @NotNull LocalDate dateExpiration,
+      Boolean fileAttente
   ) {}
 
   public record UpdateOfferRequest(
@@ -44,6 +60,7 @@ public class OfferDtos {
       @NotBlank String typeBillet,
       @NotNull BigDecimal prix,
       @NotNull Integer placesInitiales,
-      @NotNull LocalDate dateExpiration
+      @NotNull LocalDate dateExpiration,
+      Boolean fileAttente
   ) {}
 }
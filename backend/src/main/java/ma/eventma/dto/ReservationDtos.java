@@ -1,15 +1,24 @@
 package ma.eventma.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class ReservationDtos {
 
   public record CreateReservationRequest(@NotNull Long offerId, @NotNull @Min(1) Integer nbPlaces) {}
 
+  /** Several offers reserved atomically (e.g. VIP + Standard of the same event). */
+  public record CreateBasketRequest(@NotEmpty @Size(max = 20) List<@Valid CreateReservationRequest> lignes) {}
+
+  public record BasketSummary(List<ReservationSummary> reservations, BigDecimal montantTotal) {}
+
   public record ReservationRow(
       Long id,
       String codeReservation,
@@ -36,6 +45,18 @@ public class ReservationDtos {
       String eventTitre,
       Long offerId,
       String typeBillet,
-      BigDecimal prixBillet
+      BigDecimal prixBillet,
+      LocalDateTime expireLe
+  ) {}
+
+  /** Waiting-room ticket returned instead of a reservation when the offer is in queue mode. */
+  public record QueueTicket(
+      String ticketId,
+      Long offerId,
+      Integer nbPlaces,
+      String statut,
+      Long position,
+      ReservationSummary reservation,
+      String message
   ) {}
 }
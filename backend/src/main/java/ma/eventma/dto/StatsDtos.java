@@ -1,10 +1,13 @@
 package ma.eventma.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 public class StatsDtos {
-  public record Overview(Long totalVues, Long totalReservations, BigDecimal chiffreAffaires, Long evenementsActifs, Double tauxConversion, List<EventViews> vuesParEvenement) {}
+  public record Overview(Long totalVues, Long totalReservations, BigDecimal chiffreAffaires, Long evenementsActifs, Double tauxConversion, List<EventViews> vuesParEvenement,
+                         Long visiteursUniques, Double tauxConversionVisiteurs) {}
   public record EventViews(Long eventId, String titre, Long vues) {}
+  public record Visitors(Long eventId, LocalDate dateDebut, LocalDate dateFin, Long vues, Long visiteursUniques, Long reservations, Double tauxConversion) {}
   public record EventStats(Long eventId, String titre, Long vues, Long reservations, BigDecimal chiffreAffaires, Double tauxConversion) {}
 }
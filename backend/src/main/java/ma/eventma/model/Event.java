@@ -2,13 +2,21 @@ package ma.eventma.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+    @Index(name = "idx_events_statut_prix_min", columnList = "statut, prix_min"),
+    @Index(name = "idx_events_statut_prix_max", columnList = "statut, prix_max"),
+    @Index(name = "idx_events_statut_places_restantes", columnList = "statut, places_restantes")
+})
+// Only dirty columns are written, so editing an event never overwrites the counters updated in place (views, seats).
+@DynamicUpdate
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Event {
   @Id
@@ -52,6 +60,22 @@ public class Event {
   @JoinColumn(name = "organisateur_id")
   private User organisateur;
 
+  // Summary of the offers on sale, maintained by EventAvailability; prices of those with seats left only
+  @Column(name = "prix_min", precision = 10, scale = 2)
+  private BigDecimal prixMin;
+
+  @Column(name = "prix_max", precision = 10, scale = 2)
+  private BigDecimal prixMax;
+
+  @Column(name = "places_restantes", nullable = false)
+  @Builder.Default
+  private Integer placesRestantes = 0;
+
+  /** Has offers on sale, all sold out. */
+  @Column(name = "complet", nullable = false)
+  @Builder.Default
+  private Boolean complet = false;
+
   @Column(name = "created_at")
   private LocalDateTime createdAt;
 
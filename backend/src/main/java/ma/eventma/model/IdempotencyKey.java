@@ -0,0 +1,34 @@
+package ma.eventma.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+    uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_user_cle", columnNames = {"user_id", "cle"}),
+    indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class IdempotencyKey {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private Long userId;
+
+  @Column(name = "cle", nullable = false, length = 100)
+  private String cle;
+
+  /** SHA-256 of the request the key came with; null for keys stored before it was recorded. */
+  @Column(name = "empreinte", length = 64)
+  private String empreinte;
+
+  /** JSON of the response returned by the first execution. */
+  @Column(name = "reponse", nullable = false, columnDefinition = "TEXT")
+  private String reponse;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+}
@@ -2,12 +2,15 @@ package ma.eventma.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "offers")
+// Only dirty columns are written, so editing an offer never overwrites places_disponibles (owned by SeatInventory).
+@DynamicUpdate
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Offer {
   @Id
@@ -29,6 +32,11 @@ public class Offer {
   @Column(name = "date_expiration", nullable = false)
   private LocalDate dateExpiration;
 
+  /** Flash-sale mode: buyers go through the waiting room instead of reserving directly. */
+  @Column(name = "file_attente")
+  @Builder.Default
+  private Boolean fileAttente = false;
+
   @ManyToOne(optional = false)
   @JoinColumn(name = "event_id")
   private Event event;
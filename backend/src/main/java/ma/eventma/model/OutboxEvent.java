@@ -0,0 +1,38 @@
+package ma.eventma.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Domain event written in the same transaction as the change it describes, applied later to statistiques. */
+@Entity
+@Table(name = "outbox_events")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxEvent {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "type", nullable = false, length = 30)
+  private OutboxEventType type;
+
+  @Column(name = "event_id", nullable = false)
+  private Long eventId;
+
+  @Column(name = "nb", nullable = false)
+  private Integer nb;
+
+  @Column(name = "montant", nullable = false, precision = 12, scale = 2)
+  private BigDecimal montant;
+
+  /** Statistics day the event belongs to. */
+  @Column(name = "date_stat", nullable = false)
+  private LocalDate dateStat;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+}
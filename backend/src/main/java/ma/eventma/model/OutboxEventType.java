@@ -0,0 +1,6 @@
+package ma.eventma.model;
+
+public enum OutboxEventType {
+  RESERVATION_CONFIRMEE,
+  RESERVATION_ANNULEE
+}
@@ -7,7 +7,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = @Index(name = "idx_reservations_statut", columnList = "statut"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Reservation {
   @Id
@@ -30,6 +30,10 @@ public class Reservation {
   @Column(name = "statut")
   private ReservationStatus statut = ReservationStatus.EN_ATTENTE;
 
+  /** End of the seat hold while the reservation is EN_ATTENTE. */
+  @Column(name = "expire_le")
+  private LocalDateTime expireLe;
+
   @ManyToOne(optional = false)
   @JoinColumn(name = "user_id")
   private User user;
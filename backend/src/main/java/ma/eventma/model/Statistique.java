@@ -2,12 +2,15 @@ package ma.eventma.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "statistiques")
+@Table(name = "statistiques", uniqueConstraints = @UniqueConstraint(name = "uk_stat_event_jour",
+    columnNames = {"event_id", "date_consultation"}))
+@DynamicUpdate
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Statistique {
   @Id
@@ -26,6 +29,15 @@ public class Statistique {
   @Column(name = "chiffre_affaires", precision = 12, scale = 2)
   private BigDecimal chiffreAffaires = BigDecimal.ZERO;
 
+  /** Unique visitors of the day, estimated from {@link #visiteurs}. */
+  @Column(name = "nb_visiteurs")
+  @Builder.Default
+  private Integer nbVisiteurs = 0;
+
+  /** HyperLogLog registers of the day's visitors ({@link ma.eventma.service.HyperLogLog}). */
+  @Column(name = "visiteurs", length = 4096)
+  private byte[] visiteurs;
+
   @ManyToOne(optional = false)
   @JoinColumn(name = "event_id")
   private Event event;
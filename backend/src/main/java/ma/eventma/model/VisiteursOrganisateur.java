@@ -0,0 +1,30 @@
+package ma.eventma.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * HyperLogLog registers of the day's visitors over all the events of an organizer
+ * ({@link ma.eventma.service.HyperLogLog}), so the overview merges one sketch per day, not one per event and day.
+ */
+@Entity
+@Table(name = "visiteurs_organisateur", uniqueConstraints = @UniqueConstraint(name = "uk_visiteurs_org_jour",
+    columnNames = {"organisateur_id", "date_consultation"}))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class VisiteursOrganisateur {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "date_consultation", nullable = false)
+  private LocalDate dateConsultation;
+
+  @Column(name = "visiteurs", length = 4096)
+  private byte[] visiteurs;
+
+  @ManyToOne(optional = false)
+  @JoinColumn(name = "organisateur_id")
+  private User organisateur;
+}
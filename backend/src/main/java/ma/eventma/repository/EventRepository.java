@@ -1,7 +1,95 @@
 package ma.eventma.repository;
 
+import ma.eventma.dto.EventDtos;
+import ma.eventma.dto.StatsDtos;
 import ma.eventma.model.Event;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {}
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>, EventRepositoryCustom {
+
+  @Query("select new ma.eventma.dto.EventDtos$EventDetail(e.id, e.titre, e.description, e.dateEvent, e.heureDebut, e.lieu, e.imageUrl, " +
+      "e.nbVues, cast(e.statut as String), c.id, c.nom, r.id, r.nom, u.id, concat(u.nom, ' ', u.prenom)) " +
+      "from Event e join e.categorie c join e.region r join e.organisateur u where e.id = :id")
+  Optional<EventDtos.EventDetail> findDetail(@Param("id") Long id);
+
+  @Query("select coalesce(e.updatedAt, e.createdAt) from Event e where e.id = :id")
+  Optional<LocalDateTime> lastModified(@Param("id") Long id);
+
+  interface OrganizerTotals {
+    Long getVues();
+    Long getActifs();
+  }
+
+  @Query("select coalesce(sum(e.nbVues), 0) as vues, " +
+      "coalesce(sum(case when e.statut = ma.eventma.model.EventStatus.PUBLIE then 1 else 0 end), 0) as actifs " +
+      "from Event e where e.organisateur.id = :organizerId")
+  OrganizerTotals organizerTotals(@Param("organizerId") Long organizerId);
+
+  @Query("select new ma.eventma.dto.StatsDtos$EventViews(e.id, e.titre, cast(coalesce(e.nbVues, 0) as Long)) " +
+      "from Event e where e.organisateur.id = :organizerId order by e.nbVues desc nulls last, e.id")
+  List<StatsDtos.EventViews> mostViewed(@Param("organizerId") Long organizerId, Limit limit);
+
+  // Offer summary columns, maintained by EventAvailability outside the transactions that move seats.
+  // Each write sets updated_at, which EventIndexer.sync reads to bring other nodes up to date.
+
+  /**
+   * Recomputes seats left of the events from their offers on sale, and the price range of those with seats left
+   * (the "from" price of a listing card); {@link #refreshComplet} follows.
+   */
+  @Modifying
+  @Query("update Event e set " +
+      "e.placesRestantes = (select cast(coalesce(sum(o.placesDisponibles), 0) as Integer) from Offer o " +
+      "where o.event.id = e.id and (o.dateExpiration is null or o.dateExpiration >= :today)), " +
+      "e.prixMin = (select min(o.prix) from Offer o where o.event.id = e.id and o.placesDisponibles > 0 " +
+      "and (o.dateExpiration is null or o.dateExpiration >= :today)), " +
+      "e.prixMax = (select max(o.prix) from Offer o where o.event.id = e.id and o.placesDisponibles > 0 " +
+      "and (o.dateExpiration is null or o.dateExpiration >= :today)), " +
+      "e.updatedAt = :now where e.id in :ids")
+  int refreshAvailability(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today, @Param("now") LocalDateTime now);
+
+  /**
+   * Sold out: offers on sale, no seat left. Separate statement: an assignment sees the old values on H2
+   * and the new ones on MySQL.
+   */
+  @Modifying
+  @Query("update Event e set e.complet = (case when e.placesRestantes <= 0 and exists (select o.id from Offer o " +
+      "where o.event.id = e.id and (o.dateExpiration is null or o.dateExpiration >= :today)) then true else false end) " +
+      "where e.id in :ids")
+  int refreshComplet(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today);
+
+  interface Availability {
+    Long getId();
+    BigDecimal getPrixMin();
+    BigDecimal getPrixMax();
+    Integer getPlacesRestantes();
+    Boolean getComplet();
+  }
+
+  /** Keyset page: events with id > {@code afterId}, in id order. */
+  @Query("select e.id as id, e.prixMin as prixMin, e.prixMax as prixMax, e.placesRestantes as placesRestantes, " +
+      "e.complet as complet from Event e where e.id > :afterId order by e.id")
+  List<Availability> findAvailabilityAfter(@Param("afterId") Long afterId, Pageable page);
+
+  /** Sets the summary only if nobody changed it since it was read (null prices compare as -1). */
+  @Modifying
+  @Query("update Event e set e.prixMin = :prixMin, e.prixMax = :prixMax, e.placesRestantes = :places, e.complet = :complet, " +
+      "e.updatedAt = :now where e.id = :id and e.placesRestantes = :observedPlaces " +
+      "and coalesce(e.prixMin, -1) = :observedMin and coalesce(e.prixMax, -1) = :observedMax")
+  int repairAvailability(@Param("id") Long id, @Param("observedPlaces") int observedPlaces, @Param("observedMin") BigDecimal observedMin,
+                         @Param("observedMax") BigDecimal observedMax, @Param("prixMin") BigDecimal prixMin,
+                         @Param("prixMax") BigDecimal prixMax, @Param("places") int places, @Param("complet") boolean complet,
+                         @Param("now") LocalDateTime now);
+}
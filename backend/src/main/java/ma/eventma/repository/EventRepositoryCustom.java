@@ -0,0 +1,17 @@
+package ma.eventma.repository;
+
+import ma.eventma.dto.EventDtos;
+import ma.eventma.model.Event;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface EventRepositoryCustom {
+
+  /**
+   * {@link EventDtos.EventSummary} rows built in the select clause (one statement, joins on
+   * category, region and organizer) for any specification over {@code Event}. {@code limit <= 0} means no limit.
+   */
+  List<EventDtos.EventSummary> findSummaries(Specification<Event> spec, Sort sort, int limit);
+}
@@ -0,0 +1,58 @@
+package ma.eventma.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import ma.eventma.dto.EventDtos;
+import ma.eventma.model.Category;
+import ma.eventma.model.Event;
+import ma.eventma.model.Region;
+import ma.eventma.model.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class EventRepositoryImpl implements EventRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager em;
+
+  @Override
+  public List<EventDtos.EventSummary> findSummaries(Specification<Event> spec, Sort sort, int limit) {
+    CriteriaBuilder cb = em.getCriteriaBuilder();
+    CriteriaQuery<EventDtos.EventSummary> cq = cb.createQuery(EventDtos.EventSummary.class);
+    Root<Event> e = cq.from(Event.class);
+    Join<Event, Category> c = e.join("categorie");
+    Join<Event, Region> r = e.join("region");
+    Join<Event, User> u = e.join("organisateur");
+    cq.select(cb.construct(EventDtos.EventSummary.class,
+        e.get("id"), e.get("titre"), e.get("description"), e.get("dateEvent"), e.get("heureDebut"), e.get("lieu"),
+        e.get("imageUrl"), e.get("nbVues"), e.get("statut").as(String.class),
+        c.get("id"), c.get("nom"), r.get("id"), r.get("nom"),
+        u.get("id"), cb.concat(cb.concat(u.<String>get("nom"), " "), u.<String>get("prenom")),
+        e.get("prixMin"), e.get("prixMax"), e.get("placesRestantes"), e.get("complet")));
+    if (spec != null) {
+      var where = spec.toPredicate(e, cq, cb);
+      if (where != null) cq.where(where);
+    }
+    List<Order> orders = new ArrayList<>();
+    for (Sort.Order o : sort) {
+      // portable NULLS LAST (MySQL puts nulls first in ascending order)
+      if (o.getNullHandling() == Sort.NullHandling.NULLS_LAST) {
+        orders.add(cb.asc(cb.selectCase().when(cb.isNull(e.get(o.getProperty())), 1).otherwise(0)));
+      }
+      orders.add(o.isAscending() ? cb.asc(e.get(o.getProperty())) : cb.desc(e.get(o.getProperty())));
+    }
+    cq.orderBy(orders);
+
+    var query = em.createQuery(cq);
+    if (limit > 0) query.setMaxResults(limit);
+    return query.getResultList();
+  }
+}
@@ -0,0 +1,20 @@
+package ma.eventma.repository;
+
+import ma.eventma.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+  Optional<IdempotencyKey> findByUserIdAndCle(Long userId, String cle);
+
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotencyKey k where k.createdAt < :before")
+  int deleteOlderThan(@Param("before") LocalDateTime before);
+}
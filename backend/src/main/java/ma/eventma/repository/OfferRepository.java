@@ -1,10 +1,89 @@
 package ma.eventma.repository;
 
+import ma.eventma.dto.OfferDtos;
 import ma.eventma.model.Offer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface OfferRepository extends JpaRepository<Offer, Long> {
-  List<Offer> findByEventId(Long eventId);
+  @Query("select new ma.eventma.dto.OfferDtos$OfferSummary(o.id, o.typeBillet, o.prix, o.placesInitiales, o.placesDisponibles, " +
+      "o.placesInitiales - o.placesDisponibles, o.dateExpiration, e.id, e.titre, o.fileAttente) " +
+      "from Offer o join o.event e where e.id = :eventId and (o.dateExpiration is null or o.dateExpiration >= :today) order by o.id")
+  List<OfferDtos.OfferSummary> findOnSale(@Param("eventId") Long eventId, @Param("today") LocalDate today);
+
+  @Query("select new ma.eventma.dto.OfferDtos$OfferSummary(o.id, o.typeBillet, o.prix, o.placesInitiales, o.placesDisponibles, " +
+      "o.placesInitiales - o.placesDisponibles, o.dateExpiration, e.id, e.titre, o.fileAttente) " +
+      "from Offer o join o.event e where e.id in :eventIds and e.statut = ma.eventma.model.EventStatus.PUBLIE " +
+      "and (o.dateExpiration is null or o.dateExpiration >= :today) order by e.id, o.id")
+  List<OfferDtos.OfferSummary> findOnSaleByEventIds(@Param("eventIds") Collection<Long> eventIds, @Param("today") LocalDate today);
+
+  @Query("select new ma.eventma.dto.OfferDtos$OfferSummary(o.id, o.typeBillet, o.prix, o.placesInitiales, o.placesDisponibles, " +
+      "o.placesInitiales - o.placesDisponibles, o.dateExpiration, e.id, e.titre, o.fileAttente) " +
+      "from Offer o join o.event e where e.organisateur.id = :organizerId and (:eventId is null or e.id = :eventId) order by o.id")
+  List<OfferDtos.OfferSummary> findOrganizerSummaries(@Param("organizerId") Long organizerId, @Param("eventId") Long eventId);
+
+  @Query("select distinct o.event.id from Offer o where o.id in :ids")
+  List<Long> findEventIds(@Param("ids") Collection<Long> ids);
+
+  interface OnSale {
+    Long getEventId();
+    BigDecimal getPrixMin();
+    BigDecimal getPrixMax();
+    Long getPlaces();
+  }
+
+  /**
+   * Per event with id in [fromId, toId] that has offers on sale: seats left, and price range of the offers
+   * with seats left (as {@link EventRepository#refreshAvailability}).
+   */
+  @Query("select o.event.id as eventId, min(case when o.placesDisponibles > 0 then o.prix end) as prixMin, " +
+      "max(case when o.placesDisponibles > 0 then o.prix end) as prixMax, sum(o.placesDisponibles) as places " +
+      "from Offer o where o.event.id between :fromId and :toId and (o.dateExpiration is null or o.dateExpiration >= :today) " +
+      "group by o.event.id")
+  List<OnSale> summarizeOnSale(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("today") LocalDate today);
+
+  @Query("select o.id from Offer o where o.fileAttente = true")
+  List<Long> findQueuedOfferIds();
+
+  boolean existsByIdInAndFileAttenteTrue(Collection<Long> ids);
+
+  interface OfferSeats {
+    Long getId();
+    Integer getPlacesInitiales();
+    Integer getPlacesDisponibles();
+  }
+
+  /** Keyset page: offers with id > {@code afterId}, in id order. */
+  @Query("select o.id as id, o.placesInitiales as placesInitiales, o.placesDisponibles as placesDisponibles " +
+      "from Offer o where o.id > :afterId order by o.id")
+  List<OfferSeats> findSeatsAfter(@Param("afterId") Long afterId, Pageable page);
+
+  /** Sets availability only if nobody changed it since it was read. */
+  @Modifying
+  @Query("update Offer o set o.placesDisponibles = :expected where o.id = :id and o.placesDisponibles = :observed")
+  int repairSeats(@Param("id") Long id, @Param("observed") int observed, @Param("expected") int expected);
+
+  /** Conditional decrement: touches the row only if enough seats remain (0 = refused). */
+  @Modifying(flushAutomatically = true)
+  @Query("update Offer o set o.placesDisponibles = o.placesDisponibles - :n where o.id = :id and o.placesDisponibles >= :n")
+  int takeSeats(@Param("id") Long id, @Param("n") int n);
+
+  /** Gives seats back, never above the initial capacity. */
+  @Modifying(flushAutomatically = true)
+  @Query("update Offer o set o.placesDisponibles = o.placesDisponibles + :n where o.id = :id and o.placesDisponibles + :n <= o.placesInitiales")
+  int releaseSeats(@Param("id") Long id, @Param("n") int n);
+
+  /** Changes the capacity while keeping the sold count, refused if it would go below what is already sold. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Offer o set o.placesDisponibles = o.placesDisponibles + (:newInitiales - o.placesInitiales), o.placesInitiales = :newInitiales " +
+      "where o.id = :id and o.placesInitiales - o.placesDisponibles <= :newInitiales")
+  int resize(@Param("id") Long id, @Param("newInitiales") int newInitiales);
 }
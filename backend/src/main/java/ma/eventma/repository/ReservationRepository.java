@@ -1,10 +1,68 @@
 package ma.eventma.repository;
 
+import ma.eventma.dto.ReservationDtos;
 import ma.eventma.model.Reservation;
+import ma.eventma.model.ReservationStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
-  List<Reservation> findByUserIdOrderByDateReservationDesc(Long userId);
+  @Query("select new ma.eventma.dto.ReservationDtos$ReservationSummary(r.id, r.codeReservation, r.dateReservation, r.nbPlaces, " +
+      "r.montantTotal, cast(r.statut as String), e.id, e.titre, o.id, o.typeBillet, o.prix, r.expireLe) " +
+      "from Reservation r join r.offer o join o.event e where r.user.id = :userId order by r.dateReservation desc, r.id desc")
+  List<ReservationDtos.ReservationSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+  interface SalesTotals {
+    Long getReservations();
+    BigDecimal getChiffreAffaires();
+  }
+
+  @Query("select count(r) as reservations, coalesce(sum(r.montantTotal), 0) as chiffreAffaires from Reservation r " +
+      "where r.offer.event.organisateur.id = :organizerId and r.statut = ma.eventma.model.ReservationStatus.CONFIRMEE")
+  SalesTotals organizerSales(@Param("organizerId") Long organizerId);
+
+  List<Reservation> findByCodeReservationIn(List<String> codes);
+
+  /** Compare-and-set on the status, so only one concurrent caller wins a given transition. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Reservation r set r.statut = :to where r.id = :id and r.statut = :from")
+  int transition(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to);
+
+  /** Confirms a hold only if it has not expired yet. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Reservation r set r.statut = ma.eventma.model.ReservationStatus.CONFIRMEE, r.expireLe = null " +
+      "where r.id = :id and r.statut = ma.eventma.model.ReservationStatus.EN_ATTENTE and r.expireLe > :now")
+  int confirmHold(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+  interface OfferPlaces {
+    Long getOfferId();
+    Long getPlaces();
+  }
+
+  /** Seats held by reservations of the offers in [fromOfferId, toOfferId], per offer (uses the offer_id index). */
+  @Query("select r.offer.id as offerId, sum(r.nbPlaces) as places from Reservation r " +
+      "where r.offer.id between :fromOfferId and :toOfferId and r.statut in :statuts group by r.offer.id")
+  List<OfferPlaces> sumPlacesByOffer(@Param("fromOfferId") Long fromOfferId, @Param("toOfferId") Long toOfferId,
+                                     @Param("statuts") Collection<ReservationStatus> statuts);
+
+  interface PendingHold {
+    Long getId();
+    LocalDateTime getExpireLe();
+  }
+
+  @Query("select r.id as id, r.expireLe as expireLe from Reservation r where r.statut = ma.eventma.model.ReservationStatus.EN_ATTENTE")
+  List<PendingHold> findPendingHolds();
+
+  /** Holds past their end, oldest ids first (statut index). */
+  @Query("select r.id from Reservation r where r.statut = ma.eventma.model.ReservationStatus.EN_ATTENTE " +
+      "and r.expireLe < :now order by r.id")
+  List<Long> findExpiredHolds(@Param("now") LocalDateTime now, Limit limit);
 }
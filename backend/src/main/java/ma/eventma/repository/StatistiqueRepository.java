@@ -2,10 +2,65 @@ package ma.eventma.repository;
 
 import ma.eventma.model.Statistique;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface StatistiqueRepository extends JpaRepository<Statistique, Long> {
-  Optional<Statistique> findByEventIdAndDateConsultation(Long eventId, LocalDate dateConsultation);
+  /** Adds deltas to the (event, day) row, counters floored at zero; 0 when the row does not exist yet. */
+  @Modifying
+  @Query(nativeQuery = true, value = "UPDATE statistiques SET nb_vues = GREATEST(0, COALESCE(nb_vues, 0) + :vues), " +
+      "nb_reservations = GREATEST(0, COALESCE(nb_reservations, 0) + :reservations), " +
+      "chiffre_affaires = GREATEST(0, COALESCE(chiffre_affaires, 0) + :ca) " +
+      "WHERE event_id = :eventId AND date_consultation = :day")
+  int addActivity(@Param("eventId") Long eventId, @Param("day") LocalDate day, @Param("vues") long vues,
+                  @Param("reservations") long reservations, @Param("ca") BigDecimal chiffreAffaires);
+
+  /** Creates the row, or adds to it when another node created it first (unique event/day key). */
+  @Modifying
+  @Query(nativeQuery = true, value = "INSERT INTO statistiques (event_id, date_consultation, nb_vues, nb_reservations, " +
+      "chiffre_affaires, nb_visiteurs) VALUES (:eventId, :day, GREATEST(0, :vues), GREATEST(0, :reservations), GREATEST(0, :ca), 0) " +
+      "ON DUPLICATE KEY UPDATE nb_vues = GREATEST(0, COALESCE(nb_vues, 0) + :vues), " +
+      "nb_reservations = GREATEST(0, COALESCE(nb_reservations, 0) + :reservations), " +
+      "chiffre_affaires = GREATEST(0, COALESCE(chiffre_affaires, 0) + :ca)")
+  int upsertActivity(@Param("eventId") Long eventId, @Param("day") LocalDate day, @Param("vues") long vues,
+                     @Param("reservations") long reservations, @Param("ca") BigDecimal chiffreAffaires);
+
+  interface DailyActivity {
+    Long getEventId();
+    Long getRegionId();
+    Long getCategorieId();
+    LocalDate getJour();
+    Long getVues();
+    Long getReservations();
+  }
+
+  /** Daily views and net reservations of published events since {@code from}, for the trending ranking. */
+  @Query("select e.id as eventId, e.region.id as regionId, e.categorie.id as categorieId, s.dateConsultation as jour, " +
+      "cast(coalesce(s.nbVues, 0) as Long) as vues, cast(coalesce(s.nbReservations, 0) as Long) as reservations " +
+      "from Statistique s join s.event e where e.statut = ma.eventma.model.EventStatus.PUBLIE and s.dateConsultation >= :from")
+  List<DailyActivity> findActivitySince(@Param("from") LocalDate from);
+
+  interface Activity {
+    Long getVues();
+    Long getReservations();
+  }
+
+  @Query("select cast(coalesce(sum(s.nbVues), 0) as Long) as vues, cast(coalesce(sum(s.nbReservations), 0) as Long) as reservations " +
+      "from Statistique s where s.event.id = :eventId and s.dateConsultation between :from and :to")
+  Activity eventActivity(@Param("eventId") Long eventId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  @Query("select cast(coalesce(sum(s.nbVues), 0) as Long) as vues, cast(coalesce(sum(s.nbReservations), 0) as Long) as reservations " +
+      "from Statistique s where s.event.organisateur.id = :organizerId and s.dateConsultation between :from and :to")
+  Activity organizerActivity(@Param("organizerId") Long organizerId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+  /** Daily visitor sketches ({@link ma.eventma.service.HyperLogLog}), to be merged; needs a transaction. */
+  @Query("select s.visiteurs from Statistique s where s.event.id = :eventId and s.dateConsultation between :from and :to " +
+      "and s.visiteurs is not null")
+  Stream<byte[]> streamEventVisitors(@Param("eventId") Long eventId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,16 @@
+package ma.eventma.repository;
+
+import ma.eventma.model.VisiteursOrganisateur;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+public interface VisiteursOrganisateurRepository extends JpaRepository<VisiteursOrganisateur, Long> {
+  /** Daily visitor sketches of the organizer, one per day at most; needs a transaction. */
+  @Query("select v.visiteurs from VisiteursOrganisateur v where v.organisateur.id = :organizerId " +
+      "and v.dateConsultation between :from and :to and v.visiteurs is not null")
+  Stream<byte[]> streamVisitors(@Param("organizerId") Long organizerId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,27 @@
+package ma.eventma.search;
+
+import ma.eventma.model.Event;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Published by writers of {@code events}; the search index refreshes the event after commit.
+ * {@code regionIds}/{@code categoryIds} are the event's region and category before and after the change,
+ * so result caches can drop only the searches it may enter or leave; empty when unknown.
+ */
+public record EventChanged(Long eventId, Set<Long> regionIds, Set<Long> categoryIds) {
+
+  public EventChanged(Long eventId) {
+    this(eventId, Set.of(), Set.of());
+  }
+
+  /** {@code previousRegionId}/{@code previousCategoryId} are null for a new event or an unchanged one. */
+  public static EventChanged of(Event e, Long previousRegionId, Long previousCategoryId) {
+    Set<Long> regions = new HashSet<>(Set.of(e.getRegion().getId()));
+    if (previousRegionId != null) regions.add(previousRegionId);
+    Set<Long> categories = new HashSet<>(Set.of(e.getCategorie().getId()));
+    if (previousCategoryId != null) categories.add(previousCategoryId);
+    return new EventChanged(e.getId(), Set.copyOf(regions), Set.copyOf(categories));
+  }
+}
@@ -0,0 +1,39 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort mode plus the sort key of the last row returned.
+ * Decoded into a summary carrying only those key fields, which compares with {@link EventSort#comparator()}.
+ */
+public final class EventCursor {
+
+  private EventCursor() {
+  }
+
+  public static String encode(EventSort sort, EventDtos.EventSummary last) {
+    String raw = sort.name() + "|" + last.id() + "|" + last.dateEvent() + "|" + (last.heureDebut() == null ? "" : last.heureDebut())
+        + "|" + (last.nbVues() == null ? 0 : last.nbVues()) + "|" + (last.prixMin() == null ? "" : last.prixMin().toPlainString());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static EventDtos.EventSummary decode(String cursor, EventSort sort) {
+    try {
+      String[] f = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+      // 5 fields: issued before the price sort existed
+      if ((f.length != 5 && f.length != 6) || EventSort.valueOf(f[0]) != sort) throw new IllegalArgumentException("Curseur invalide");
+      BigDecimal prixMin = f.length == 6 && !f[5].isEmpty() ? new BigDecimal(f[5]) : null;
+      return new EventDtos.EventSummary(Long.parseLong(f[1]), null, null, LocalDate.parse(f[2]),
+          f[3].isEmpty() ? null : LocalTime.parse(f[3]), null, null, Integer.parseInt(f[4]), null,
+          null, null, null, null, null, null, prixMin, null, null, null);
+    } catch (RuntimeException ex) {
+      throw new IllegalArgumentException("Curseur invalide");
+    }
+  }
+}
@@ -0,0 +1,408 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over published events. Each event gets a dense doc id; terms of
+ * titre, lieu and description ({@link TextAnalyzer}) map to a {@link BitSet} of doc ids, as do regions
+ * and categories, so a query is a handful of bitset intersections. A query term matches indexed terms
+ * equal to it, starting with it, or within {@link TextAnalyzer#maxEdits} typos; typo candidates come
+ * from a trigram index over the vocabulary, so only terms sharing enough trigrams are compared (terms
+ * too short for that bound are compared with every term of a close length). A query made only of stop
+ * words and single letters matches its words as prefixes, without typos.
+ * Facet counts are taken in the same pass as the hits.
+ * Reads share a lock; writes (organizer edits) are exclusive and rare.
+ */
+@Component
+public class EventIndex {
+
+  private static final BitSet EMPTY = new BitSet();
+  private static final int TITRE = 1, LIEU = 2, DESCRIPTION = 4;
+  private static final double EXACT = 1.0, PREFIX = 0.8, ONE_TYPO = 0.6, TWO_TYPOS = 0.4;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Integer> docByEvent = new HashMap<>();
+  private final List<Doc> docs = new ArrayList<>();
+  private final Deque<Integer> freeDocs = new ArrayDeque<>();
+  private final BitSet live = new BitSet();
+  private final TreeMap<String, BitSet> postings = new TreeMap<>();
+  private final Map<String, Set<String>> termsByGram = new HashMap<>();
+  private final Map<Integer, Set<String>> termsByLength = new HashMap<>();
+  private final Map<Long, BitSet> byRegion = new HashMap<>();
+  private final Map<Long, BitSet> byCategory = new HashMap<>();
+  private volatile boolean ready;
+  private volatile long loads;
+
+  /** False until the first full load; callers then fall back to SQL. */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /** Number of full loads so far: results computed under an older one may carry outdated names. */
+  public long loads() {
+    return loads;
+  }
+
+  /** Replaces the whole content. */
+  public void load(Collection<EventDtos.EventSummary> events) {
+    lock.writeLock().lock();
+    try {
+      docByEvent.clear();
+      docs.clear();
+      freeDocs.clear();
+      live.clear();
+      postings.clear();
+      termsByGram.clear();
+      termsByLength.clear();
+      byRegion.clear();
+      byCategory.clear();
+      for (var e : events) add(e);
+      ready = true;
+      loads++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void upsert(EventDtos.EventSummary e) {
+    lock.writeLock().lock();
+    try {
+      removeDoc(e.id());
+      add(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(Long eventId) {
+    lock.writeLock().lock();
+    try {
+      removeDoc(eventId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Keeps the {@code views} sort close to the database counter without re-indexing. */
+  public void addViews(Long eventId, int n) {
+    lock.readLock().lock();
+    try {
+      Integer doc = docByEvent.get(eventId);
+      if (doc != null) docs.get(doc).vues.addAndGet(n);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Live summary of a published event, null when it is not indexed. */
+  public EventDtos.EventSummary get(Long eventId) {
+    lock.readLock().lock();
+    try {
+      Integer doc = docByEvent.get(eventId);
+      return doc == null ? null : docs.get(doc).snapshot();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * With a text query and no explicit sort (or {@code relevance}), hits are ranked by relevance:
+   * per query term, the best match weighted by how it matched and by field (titre, lieu, description),
+   * then by views and id.
+   */
+  public List<EventDtos.EventSummary> search(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo,
+                                             PriceFilter price, String sort) {
+    boolean byRelevance = sort == null || sort.isBlank() || "relevance".equalsIgnoreCase(sort);
+    if (!byRelevance || TextAnalyzer.terms(q).isEmpty()) {
+      List<EventDtos.EventSummary> out = new ArrayList<>();
+      collect(q, regionId, categoryId, dateFrom, dateTo, price, null, false, (doc, score) -> out.add(doc.snapshot()));
+      out.sort(EventSort.parse(sort).comparator());
+      return out;
+    }
+    List<Scored> hits = new ArrayList<>();
+    collect(q, regionId, categoryId, dateFrom, dateTo, price, null, true, (doc, score) -> hits.add(new Scored(doc.snapshot(), score)));
+    hits.sort(Comparator.comparingDouble(Scored::score).reversed().thenComparing(Scored::summary, EventSort.VIEWS.comparator()));
+    return hits.stream().map(Scored::summary).toList();
+  }
+
+  private record Scored(EventDtos.EventSummary summary, double score) {}
+
+  private interface Hits {
+    void accept(Doc doc, double score);
+  }
+
+  public record Page(List<EventDtos.EventSummary> items, EventDtos.Facets facets) {}
+
+  /**
+   * Up to {@code limit} hits strictly after {@code after} (null for the first page), kept in a bounded heap.
+   * With {@code withFacets}, counts cover every hit of the search, not only this page.
+   */
+  public Page page(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo, PriceFilter price,
+                   EventSort sort, EventDtos.EventSummary after, int limit, boolean withFacets) {
+    Comparator<EventDtos.EventSummary> order = sort.comparator();
+    PriorityQueue<EventDtos.EventSummary> top = new PriorityQueue<>(limit + 1, order.reversed());
+    FacetCounter facets = withFacets ? new FacetCounter() : null;
+    collect(q, regionId, categoryId, dateFrom, dateTo, price, facets, false, (doc, score) -> {
+      EventDtos.EventSummary e = doc.snapshot();
+      if (after != null && order.compare(e, after) <= 0) return;
+      if (top.size() < limit) top.add(e);
+      else if (order.compare(e, top.peek()) < 0) {
+        top.poll();
+        top.add(e);
+      }
+    });
+    List<EventDtos.EventSummary> out = new ArrayList<>(top);
+    out.sort(order);
+    return new Page(out, facets == null ? null : facets.toDto());
+  }
+
+  /**
+   * Feeds {@code sink} with the hits, scored when {@code scored}. With {@code facets}, the region and category
+   * filters are checked per doc instead of by intersection, so docs that miss only one filter still count
+   * for that facet. The price filter applies to every count.
+   */
+  private void collect(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo, PriceFilter price,
+                       FacetCounter facets, boolean scored, Hits sink) {
+    lock.readLock().lock();
+    try {
+      BitSet hits = (BitSet) live.clone();
+      if (facets == null && regionId != null) hits.and(byRegion.getOrDefault(regionId, EMPTY));
+      if (facets == null && categoryId != null) hits.and(byCategory.getOrDefault(categoryId, EMPTY));
+      List<Map<String, Double>> query = expand(q);
+      for (Map<String, Double> matches : query) {
+        if (hits.isEmpty()) break;
+        BitSet any = new BitSet();
+        for (String term : matches.keySet()) any.or(postings.get(term));
+        hits.and(any);
+      }
+      for (int d = hits.nextSetBit(0); d >= 0; d = hits.nextSetBit(d + 1)) {
+        Doc doc = docs.get(d);
+        if (!price.matches(doc.summary)) continue;
+        LocalDate date = doc.summary.dateEvent();
+        boolean inDates = (dateFrom == null || !date.isBefore(dateFrom)) && (dateTo == null || !date.isAfter(dateTo));
+        if (facets == null) {
+          if (inDates) sink.accept(doc, scored ? score(doc, query) : 0);
+          continue;
+        }
+        boolean inRegion = regionId == null || regionId.equals(doc.summary.regionId());
+        boolean inCategory = categoryId == null || categoryId.equals(doc.summary.categorieId());
+        facets.count(doc, inRegion, inCategory, inDates);
+        if (inRegion && inCategory && inDates) sink.accept(doc, scored ? score(doc, query) : 0);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Per query term, the indexed terms it matches with their weight. */
+  private List<Map<String, Double>> expand(String q) {
+    List<Map<String, Double>> out = new ArrayList<>();
+    Set<String> terms = TextAnalyzer.terms(q);
+    // "de", "a": nothing indexable, but not a request for everything
+    boolean raw = terms.isEmpty();
+    if (raw) terms = TextAnalyzer.words(q);
+    for (String t : terms) {
+      Map<String, Double> matches = new HashMap<>();
+      for (String term : postings.subMap(t, true, t + Character.MAX_VALUE, true).keySet()) {
+        matches.put(term, term.equals(t) ? EXACT : PREFIX);
+      }
+      int max = raw ? 0 : TextAnalyzer.maxEdits(t.length());
+      if (max > 0) addTypos(t, max, matches);
+      out.add(matches);
+    }
+    return out;
+  }
+
+  private void addTypos(String t, int max, Map<String, Double> matches) {
+    for (String term : typoCandidates(t, max)) {
+      if (matches.containsKey(term)) continue;
+      int d = TextAnalyzer.distance(t, term, max);
+      if (d <= max) matches.put(term, d <= 1 ? ONE_TYPO : TWO_TYPOS);
+    }
+  }
+
+  /** Indexed terms that may be within {@code max} edits of {@code t}; a superset, checked by distance. */
+  private Collection<String> typoCandidates(String t, int max) {
+    List<String> grams = TextAnalyzer.grams(t);
+    // one edit (or transposition) changes at most four trigrams
+    int needed = grams.size() - 4 * max;
+    if (needed <= 0) {
+      // "rock"/"rcok" share no trigram: fall back to the terms of a close length
+      List<String> out = new ArrayList<>();
+      for (int len = t.length() - max; len <= t.length() + max; len++) out.addAll(termsByLength.getOrDefault(len, Set.of()));
+      return out;
+    }
+    Map<String, Integer> shared = new HashMap<>();
+    for (String g : grams) {
+      for (String term : termsByGram.getOrDefault(g, Set.of())) shared.merge(term, 1, Integer::sum);
+    }
+    List<String> out = new ArrayList<>();
+    shared.forEach((term, n) -> {
+      if (n >= needed) out.add(term);
+    });
+    return out;
+  }
+
+  private static double score(Doc doc, List<Map<String, Double>> query) {
+    double total = 0;
+    for (Map<String, Double> matches : query) {
+      double best = 0;
+      for (var f : doc.fields.entrySet()) {
+        Double w = matches.get(f.getKey());
+        if (w != null) best = Math.max(best, w * boost(f.getValue()));
+      }
+      total += best;
+    }
+    return total;
+  }
+
+  private static int boost(int fields) {
+    return (fields & TITRE) != 0 ? 3 : (fields & LIEU) != 0 ? 2 : 1;
+  }
+
+  private void add(EventDtos.EventSummary e) {
+    int d = freeDocs.isEmpty() ? docs.size() : freeDocs.pop();
+    Doc doc = new Doc(e, fields(e));
+    if (d == docs.size()) docs.add(doc);
+    else docs.set(d, doc);
+    docByEvent.put(e.id(), d);
+    live.set(d);
+    for (String t : doc.fields.keySet()) {
+      BitSet bits = postings.get(t);
+      if (bits == null) {
+        postings.put(t, bits = new BitSet());
+        for (String g : TextAnalyzer.grams(t)) termsByGram.computeIfAbsent(g, k -> new HashSet<>()).add(t);
+        termsByLength.computeIfAbsent(t.length(), k -> new HashSet<>()).add(t);
+      }
+      bits.set(d);
+    }
+    byRegion.computeIfAbsent(e.regionId(), k -> new BitSet()).set(d);
+    byCategory.computeIfAbsent(e.categorieId(), k -> new BitSet()).set(d);
+  }
+
+  private void removeDoc(Long eventId) {
+    Integer d = docByEvent.remove(eventId);
+    if (d == null) return;
+    Doc doc = docs.get(d);
+    for (String t : doc.fields.keySet()) {
+      clear(postings, t, d);
+      if (!postings.containsKey(t)) {
+        for (String g : TextAnalyzer.grams(t)) {
+          Set<String> terms = termsByGram.get(g);
+          terms.remove(t);
+          if (terms.isEmpty()) termsByGram.remove(g);
+        }
+        Set<String> sameLength = termsByLength.get(t.length());
+        sameLength.remove(t);
+        if (sameLength.isEmpty()) termsByLength.remove(t.length());
+      }
+    }
+    clear(byRegion, doc.summary.regionId(), d);
+    clear(byCategory, doc.summary.categorieId(), d);
+    live.clear(d);
+    docs.set(d, null);
+    freeDocs.push(d);
+  }
+
+  /** Term -> fields it appears in. */
+  private static Map<String, Integer> fields(EventDtos.EventSummary e) {
+    Map<String, Integer> out = new HashMap<>();
+    for (String t : TextAnalyzer.terms(e.titre())) out.merge(t, TITRE, (a, b) -> a | b);
+    for (String t : TextAnalyzer.terms(e.lieu())) out.merge(t, LIEU, (a, b) -> a | b);
+    for (String t : TextAnalyzer.terms(e.description())) out.merge(t, DESCRIPTION, (a, b) -> a | b);
+    return out;
+  }
+
+  private static <K> void clear(Map<K, BitSet> index, K key, int doc) {
+    BitSet bits = index.get(key);
+    if (bits == null) return;
+    bits.clear(doc);
+    if (bits.isEmpty()) index.remove(key);
+  }
+
+  private static final class Doc {
+    final EventDtos.EventSummary summary;
+    final Map<String, Integer> fields;
+    final LocalDate week;
+    final YearMonth month;
+    final AtomicInteger vues;
+
+    Doc(EventDtos.EventSummary summary, Map<String, Integer> fields) {
+      this.summary = summary;
+      this.fields = fields;
+      this.week = summary.dateEvent().with(DayOfWeek.MONDAY);
+      this.month = YearMonth.from(summary.dateEvent());
+      this.vues = new AtomicInteger(summary.nbVues() == null ? 0 : summary.nbVues());
+    }
+
+    EventDtos.EventSummary snapshot() {
+      EventDtos.EventSummary s = summary;
+      int v = vues.get();
+      if (s.nbVues() != null && s.nbVues() == v) return s;
+      return new EventDtos.EventSummary(s.id(), s.titre(), s.description(), s.dateEvent(), s.heureDebut(), s.lieu(), s.imageUrl(),
+          v, s.statut(), s.categorieId(), s.categorieNom(), s.regionId(), s.regionNom(), s.organisateurId(), s.organisateurNomComplet(),
+          s.prixMin(), s.prixMax(), s.placesRestantes(), s.complet());
+    }
+  }
+
+  /** Per-search counters; a doc counts for a facet when it passes every filter but that facet's own. */
+  private static final class FacetCounter {
+    final Map<Long, Count> regions = new HashMap<>();
+    final Map<Long, Count> categories = new HashMap<>();
+    final TreeMap<LocalDate, Count> weeks = new TreeMap<>();
+    final TreeMap<YearMonth, Count> months = new TreeMap<>();
+
+    void count(Doc doc, boolean inRegion, boolean inCategory, boolean inDates) {
+      EventDtos.EventSummary s = doc.summary;
+      if (inCategory && inDates) regions.computeIfAbsent(s.regionId(), k -> new Count(s.regionNom())).n++;
+      if (inRegion && inDates) categories.computeIfAbsent(s.categorieId(), k -> new Count(s.categorieNom())).n++;
+      if (inRegion && inCategory) {
+        weeks.computeIfAbsent(doc.week, k -> new Count(null)).n++;
+        months.computeIfAbsent(doc.month, k -> new Count(null)).n++;
+      }
+    }
+
+    EventDtos.Facets toDto() {
+      return new EventDtos.Facets(named(regions), named(categories),
+          weeks.entrySet().stream().map(e -> new EventDtos.DateBucket(e.getKey(), e.getKey().plusDays(6), e.getValue().n)).toList(),
+          months.entrySet().stream().map(e -> new EventDtos.DateBucket(e.getKey().atDay(1), e.getKey().atEndOfMonth(), e.getValue().n)).toList());
+    }
+
+    private static List<EventDtos.FacetCount> named(Map<Long, Count> counts) {
+      return counts.entrySet().stream()
+          .map(e -> new EventDtos.FacetCount(e.getKey(), e.getValue().nom, e.getValue().n))
+          .sorted(Comparator.comparingLong(EventDtos.FacetCount::count).reversed().thenComparing(EventDtos.FacetCount::nom))
+          .toList();
+    }
+  }
+
+  private static final class Count {
+    final String nom;
+    long n;
+
+    Count(String nom) {
+      this.nom = nom;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package ma.eventma.search;
+
+import ma.eventma.model.Event;
+import ma.eventma.model.EventStatus;
+import ma.eventma.repository.EventRepository;
+import ma.eventma.service.OfferChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds {@link EventIndex} and {@link SuggestIndex}, and moves events between {@link TrendingIndex} groups: a full load in the background at startup (searches use SQL meanwhile),
+ * then one event at a time after each committed organizer change. Offer prices and seats left follow once
+ * {@link ma.eventma.service.EventAvailability} has recomputed them, within {@code app.search.availability-refresh-ms}.
+ * <p>
+ * Changes committed on other nodes are picked up every {@code sync-ms} from {@code updated_at} (with
+ * {@code sync-overlap-seconds} of margin for late commits and clock skew); deletions, and anything that
+ * does not touch {@code updated_at}, at the full reload every {@code rebuild-minutes}.
+ */
+@Component
+public class EventIndexer {
+
+  /** Order of the {@link EventChanged} listener: caches of search results must be dropped after it ran. */
+  public static final int ORDER = 0;
+  private static final Logger log = LoggerFactory.getLogger(EventIndexer.class);
+
+  private final EventRepository eventRepository;
+  private final EventIndex index;
+  private final SuggestIndex suggestions;
+  private final TrendingIndex trending;
+  private final TaskExecutor executor;
+  private final Duration syncOverlap;
+
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+  private final AtomicBoolean rerun = new AtomicBoolean();
+  // changes committed while a rebuild reads the table, re-applied once it is loaded
+  private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+  // events whose offer summary was recomputed, reloaded in one query per refreshAvailability() run
+  private final Set<Long> eventsMoved = ConcurrentHashMap.newKeySet();
+  /** Changes up to this instant are in the index; null until the first load. */
+  private volatile LocalDateTime syncedUpTo;
+
+  public EventIndexer(EventRepository eventRepository, EventIndex index, SuggestIndex suggestions, TrendingIndex trending,
+                      @Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                      @Value("${app.search.sync-overlap-seconds:60}") long syncOverlapSeconds) {
+    this.eventRepository = eventRepository;
+    this.index = index;
+    this.suggestions = suggestions;
+    this.trending = trending;
+    this.executor = executor;
+    this.syncOverlap = Duration.ofSeconds(syncOverlapSeconds);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildAsync() {
+    executor.execute(this::rebuild);
+  }
+
+  public void rebuild() {
+    rerun.set(true);
+    if (!rebuilding.compareAndSet(false, true)) return;
+    try {
+      while (rerun.getAndSet(false)) load();
+    } catch (RuntimeException ex) {
+      log.error("Chargement de l'index de recherche impossible", ex);
+    } finally {
+      rebuilding.set(false);
+    }
+    for (Long id : touchedDuringRebuild) {
+      touchedDuringRebuild.remove(id);
+      refresh(id);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.search.rebuild-minutes:60}", initialDelayString = "${app.search.rebuild-minutes:60}",
+      timeUnit = TimeUnit.MINUTES)
+  public void scheduledRebuild() {
+    // off the scheduler threads, which admissions and hold expiry share
+    rebuildAsync();
+  }
+
+  private void load() {
+    long t0 = System.currentTimeMillis();
+    LocalDateTime start = LocalDateTime.now();
+    var events = eventRepository.findSummaries(published(), Sort.by("id"), 0);
+    index.load(events);
+    suggestions.load(events);
+    syncedUpTo = start;
+    log.info("Index de recherche: {} évènements chargés en {} ms", events.size(), System.currentTimeMillis() - t0);
+  }
+
+  @Order(ORDER)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void on(EventChanged change) {
+    if (rebuilding.get()) touchedDuringRebuild.add(change.eventId());
+    refresh(change.eventId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void on(OfferChanged change) {
+    // seat movements reach the index once EventAvailability has recomputed the event (offerId null)
+    if (change.offerId() == null) eventsMoved.add(change.eventId());
+  }
+
+  /** Brings price and seats of the indexed events whose offer summary changed up to date. */
+  @Scheduled(fixedDelayString = "${app.search.availability-refresh-ms:1000}")
+  public void refreshAvailability() {
+    if (eventsMoved.isEmpty()) return;
+    Set<Long> eventIds = drain(eventsMoved);
+    Specification<Event> touched = (root, query, cb) -> root.get("id").in(eventIds);
+    try {
+      for (var e : eventRepository.findSummaries(published().and(touched), Sort.unsorted(), 0)) index.upsert(e);
+    } catch (RuntimeException ex) {
+      eventsMoved.addAll(eventIds);
+      log.warn("Index de recherche: disponibilités non rafraîchies, nouvel essai au prochain passage", ex);
+    }
+  }
+
+  /** Re-reads the events updated since the last sync, whichever node changed them. */
+  @Scheduled(fixedDelayString = "${app.search.sync-ms:30000}", initialDelayString = "${app.search.sync-ms:30000}")
+  public void sync() {
+    LocalDateTime since = syncedUpTo;
+    if (since == null || rebuilding.get()) return;
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime from = since.minus(syncOverlap);
+    Specification<Event> updated = (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("updatedAt"), from);
+    try {
+      for (var e : eventRepository.findSummaries(updated, Sort.by("id"), 0)) {
+        if (EventStatus.PUBLIE.name().equals(e.statut())) {
+          index.upsert(e);
+          suggestions.upsert(e);
+          trending.upsert(e);
+        } else {
+          index.remove(e.id());
+          suggestions.remove(e.id());
+          trending.remove(e.id());
+        }
+      }
+      syncedUpTo = now;
+    } catch (RuntimeException ex) {
+      log.warn("Index de recherche: synchronisation reportée", ex);
+    }
+  }
+
+  private static Set<Long> drain(Set<Long> pending) {
+    Set<Long> out = new HashSet<>();
+    for (Long id : pending) {
+      pending.remove(id);
+      out.add(id);
+    }
+    return out;
+  }
+
+  private void refresh(Long eventId) {
+    Specification<Event> byId = (root, query, cb) -> cb.equal(root.get("id"), eventId);
+    var found = eventRepository.findSummaries(published().and(byId), Sort.unsorted(), 1);
+    if (found.isEmpty()) {
+      index.remove(eventId);
+      suggestions.remove(eventId);
+      trending.remove(eventId);
+    } else {
+      index.upsert(found.get(0));
+      suggestions.upsert(found.get(0));
+      trending.upsert(found.get(0));
+    }
+  }
+
+  private static Specification<Event> published() {
+    return (root, query, cb) -> cb.equal(root.get("statut"), EventStatus.PUBLIE);
+  }
+}
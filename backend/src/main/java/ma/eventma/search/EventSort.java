@@ -0,0 +1,52 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+
+/** Orderings of public search results; each is total (ties broken by id) so it can back a keyset cursor. */
+public enum EventSort {
+  ID,
+  DATE_ASC,
+  DATE_DESC,
+  VIEWS,
+  /** Cheapest offer on sale first; events without one last. */
+  PRICE_ASC;
+
+  private static final Comparator<EventDtos.EventSummary> BY_ID = Comparator.comparing(EventDtos.EventSummary::id);
+  private static final Comparator<EventDtos.EventSummary> BY_PRICE = Comparator.comparing(EventDtos.EventSummary::prixMin,
+      Comparator.nullsLast(Comparator.naturalOrder()));
+  private static final Comparator<EventDtos.EventSummary> BY_DATE = Comparator.comparing(EventDtos.EventSummary::dateEvent)
+      .thenComparing(EventDtos.EventSummary::heureDebut, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  /** Unknown or missing values fall back to {@link #ID}, as the unsorted search did. */
+  public static EventSort parse(String sort) {
+    if (sort == null) return ID;
+    for (EventSort s : values()) {
+      if (s.name().equalsIgnoreCase(sort)) return s;
+    }
+    return ID;
+  }
+
+  public Comparator<EventDtos.EventSummary> comparator() {
+    return switch (this) {
+      case ID -> BY_ID;
+      case DATE_ASC -> BY_DATE.thenComparing(BY_ID);
+      case DATE_DESC -> BY_DATE.reversed().thenComparing(BY_ID);
+      case VIEWS -> Comparator.comparing((EventDtos.EventSummary e) -> e.nbVues() == null ? 0 : e.nbVues()).reversed().thenComparing(BY_ID);
+      case PRICE_ASC -> BY_PRICE.thenComparing(BY_ID);
+    };
+  }
+
+  /** Same order as {@link #comparator()}, on {@code Event} attributes. */
+  public Sort sql() {
+    return switch (this) {
+      case ID -> Sort.by("id");
+      case DATE_ASC -> Sort.by(Sort.Order.asc("dateEvent"), Sort.Order.asc("heureDebut"), Sort.Order.asc("id"));
+      case DATE_DESC -> Sort.by(Sort.Order.desc("dateEvent"), Sort.Order.desc("heureDebut"), Sort.Order.asc("id"));
+      case VIEWS -> Sort.by(Sort.Order.desc("nbVues"), Sort.Order.asc("id"));
+      case PRICE_ASC -> Sort.by(Sort.Order.asc("prixMin").nullsLast(), Sort.Order.asc("id"));
+    };
+  }
+}
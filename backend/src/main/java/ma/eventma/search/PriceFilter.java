@@ -0,0 +1,26 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+
+import java.math.BigDecimal;
+
+/**
+ * Price range and availability filters of a public search, on the offer summary kept on each event.
+ * An event is in the range when the price span of its offers on sale overlaps it.
+ */
+public record PriceFilter(BigDecimal min, BigDecimal max, boolean availableOnly) {
+
+  public static final PriceFilter NONE = new PriceFilter(null, null, false);
+
+  public static PriceFilter of(BigDecimal min, BigDecimal max, boolean availableOnly) {
+    if (min != null && max != null && min.compareTo(max) > 0) throw new IllegalArgumentException("Fourchette de prix invalide");
+    if (min == null && max == null && !availableOnly) return NONE;
+    return new PriceFilter(min, max, availableOnly);
+  }
+
+  public boolean matches(EventDtos.EventSummary e) {
+    if (availableOnly && (e.placesRestantes() == null || e.placesRestantes() <= 0)) return false;
+    if (min != null && (e.prixMax() == null || e.prixMax().compareTo(min) < 0)) return false;
+    return max == null || (e.prixMin() != null && e.prixMin().compareTo(max) <= 0);
+  }
+}
@@ -0,0 +1,275 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead over the titles and venues of published events. Completions live in a character trie
+ * keyed by every word start of the normalized text (so "casa" finds "Festival Casablanca Night"),
+ * and each node keeps its {@value #K} best completions by views, so a lookup is a walk down the
+ * prefix plus a copy. Writes recompute those lists along the touched paths only.
+ * Views are the ones known at indexing time; they catch up on the next organizer change or rebuild.
+ */
+@Component
+public class SuggestIndex {
+
+  public static final int K = 10;
+  private static final int MAX_WORD_STARTS = 4;
+  private static final int MAX_KEY_LENGTH = 40;
+  private static final Completion[] NONE = new Completion[0];
+  private static final Comparator<Completion> BEST = Comparator.comparingInt((Completion c) -> c.score).reversed()
+      .thenComparing(c -> c.texte);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Node root = new Node();
+  private final Map<String, Completion> completions = new HashMap<>();
+  private final Map<Long, List<Completion>> byEvent = new HashMap<>();
+  private volatile boolean ready;
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  /** Replaces the whole content; the best-completion lists are computed once at the end. */
+  public void load(Collection<EventDtos.EventSummary> events) {
+    lock.writeLock().lock();
+    try {
+      root.clear();
+      completions.clear();
+      byEvent.clear();
+      for (var e : events) add(e, false);
+      computeAll(root);
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void upsert(EventDtos.EventSummary e) {
+    lock.writeLock().lock();
+    try {
+      removeEvent(e.id());
+      add(e, true);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(Long eventId) {
+    lock.writeLock().lock();
+    try {
+      removeEvent(eventId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public List<EventDtos.Suggestion> suggest(String prefix, int limit) {
+    String key = key(TextAnalyzer.normalize(prefix));
+    if (key.isEmpty()) return List.of();
+    lock.readLock().lock();
+    try {
+      Node n = root;
+      for (int i = 0; i < key.length() && n != null; i++) n = n.child(key.charAt(i));
+      if (n == null) return List.of();
+      List<EventDtos.Suggestion> out = new ArrayList<>();
+      for (int i = 0; i < n.top.length && i < limit; i++) out.add(n.top[i].toDto());
+      return out;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(EventDtos.EventSummary e, boolean incremental) {
+    int vues = e.nbVues() == null ? 0 : e.nbVues();
+    List<Completion> mine = new ArrayList<>(2);
+    for (String type : new String[]{"TITRE", "LIEU"}) {
+      String texte = "TITRE".equals(type) ? e.titre() : e.lieu();
+      String normalized = TextAnalyzer.normalize(texte);
+      if (normalized.isEmpty()) continue;
+      Completion c = completions.computeIfAbsent(type + '|' + normalized, k -> insert(new Completion(texte.strip(), type, normalized)));
+      c.vues.put(e.id(), vues);
+      c.rescore();
+      mine.add(c);
+      if (incremental) refreshPaths(c);
+    }
+    byEvent.put(e.id(), mine);
+  }
+
+  private void removeEvent(Long eventId) {
+    List<Completion> mine = byEvent.remove(eventId);
+    if (mine == null) return;
+    for (Completion c : mine) {
+      c.vues.remove(eventId);
+      if (c.vues.isEmpty()) {
+        completions.remove(c.type + '|' + c.normalized);
+        for (String k : c.keys) detach(c, k);
+      } else {
+        c.rescore();
+      }
+      refreshPaths(c);
+    }
+  }
+
+  private Completion insert(Completion c) {
+    for (String k : c.keys) {
+      Node n = root;
+      for (int i = 0; i < k.length(); i++) n = n.childOrAdd(k.charAt(i));
+      n.terminal.add(c);
+    }
+    return c;
+  }
+
+  /** Drops {@code c} from the node of {@code key} and prunes the nodes left empty. */
+  private void detach(Completion c, String key) {
+    Node[] path = path(key);
+    if (path.length != key.length() + 1) return;
+    path[key.length()].terminal.remove(c);
+    for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) path[i - 1].removeChild(key.charAt(i - 1));
+  }
+
+  /** Recomputes the best lists from the deepest node of each key up to the root. */
+  private void refreshPaths(Completion c) {
+    for (String k : c.keys) {
+      Node[] path = path(k);
+      for (int i = path.length - 1; i >= 0; i--) path[i].computeTop();
+    }
+  }
+
+  private Node[] path(String key) {
+    List<Node> nodes = new ArrayList<>(key.length() + 1);
+    Node n = root;
+    nodes.add(n);
+    for (int i = 0; i < key.length(); i++) {
+      n = n.child(key.charAt(i));
+      if (n == null) break;
+      nodes.add(n);
+    }
+    return nodes.toArray(new Node[0]);
+  }
+
+  private static void computeAll(Node n) {
+    for (Node kid : n.kids) computeAll(kid);
+    n.computeTop();
+  }
+
+  private static String key(String normalized) {
+    return normalized.length() <= MAX_KEY_LENGTH ? normalized : normalized.substring(0, MAX_KEY_LENGTH);
+  }
+
+  /** One distinct text; a venue shared by several events ranks by its most viewed one. */
+  private static final class Completion {
+    final String texte;
+    final String type;
+    final String normalized;
+    final List<String> keys = new ArrayList<>();
+    final Map<Long, Integer> vues = new HashMap<>();
+    int score;
+    Long bestEvent;
+
+    Completion(String texte, String type, String normalized) {
+      this.texte = texte;
+      this.type = type;
+      this.normalized = normalized;
+      for (int i = 0; i < normalized.length() && keys.size() < MAX_WORD_STARTS; i++) {
+        if (i == 0 || normalized.charAt(i - 1) == ' ') {
+          String k = key(normalized.substring(i));
+          if (!keys.contains(k)) keys.add(k);
+        }
+      }
+    }
+
+    void rescore() {
+      score = -1;
+      for (var e : vues.entrySet()) {
+        if (e.getValue() > score || (e.getValue() == score && e.getKey() < bestEvent)) {
+          score = e.getValue();
+          bestEvent = e.getKey();
+        }
+      }
+    }
+
+    EventDtos.Suggestion toDto() {
+      return new EventDtos.Suggestion(texte, type, "TITRE".equals(type) ? bestEvent : null, score);
+    }
+  }
+
+  private static final class Node {
+    char[] chars = new char[0];
+    Node[] kids = new Node[0];
+    final List<Completion> terminal = new ArrayList<>(1);
+    Completion[] top = NONE;
+
+    Node child(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      return i >= 0 ? kids[i] : null;
+    }
+
+    Node childOrAdd(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      if (i >= 0) return kids[i];
+      int at = -i - 1;
+      Node n = new Node();
+      char[] cs = new char[chars.length + 1];
+      Node[] ks = new Node[kids.length + 1];
+      System.arraycopy(chars, 0, cs, 0, at);
+      System.arraycopy(kids, 0, ks, 0, at);
+      cs[at] = c;
+      ks[at] = n;
+      System.arraycopy(chars, at, cs, at + 1, chars.length - at);
+      System.arraycopy(kids, at, ks, at + 1, kids.length - at);
+      chars = cs;
+      kids = ks;
+      return n;
+    }
+
+    void removeChild(char c) {
+      int i = Arrays.binarySearch(chars, c);
+      if (i < 0) return;
+      char[] cs = new char[chars.length - 1];
+      Node[] ks = new Node[kids.length - 1];
+      System.arraycopy(chars, 0, cs, 0, i);
+      System.arraycopy(kids, 0, ks, 0, i);
+      System.arraycopy(chars, i + 1, cs, i, chars.length - i - 1);
+      System.arraycopy(kids, i + 1, ks, i, kids.length - i - 1);
+      chars = cs;
+      kids = ks;
+    }
+
+    boolean isEmpty() {
+      return kids.length == 0 && terminal.isEmpty();
+    }
+
+    void clear() {
+      chars = new char[0];
+      kids = new Node[0];
+      terminal.clear();
+      top = NONE;
+    }
+
+    /** Best {@value #K} of the own completions and the children's lists; a text reachable twice counts once. */
+    void computeTop() {
+      Set<Completion> seen = new HashSet<>(terminal);
+      List<Completion> candidates = new ArrayList<>(terminal);
+      for (Node kid : kids) {
+        for (Completion c : kid.top) {
+          if (seen.add(c)) candidates.add(c);
+        }
+      }
+      candidates.sort(BEST);
+      top = candidates.size() <= K ? candidates.toArray(NONE) : candidates.subList(0, K).toArray(NONE);
+    }
+  }
+}
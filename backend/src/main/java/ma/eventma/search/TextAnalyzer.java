@@ -0,0 +1,124 @@
+package ma.eventma.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Text pipeline shared by indexing and queries, so both sides agree on every term:
+ * Unicode folding (case, accents, ligatures), tokenizing, French stop words, then a light French
+ * stemmer that also collapses doubled letters, so transliteration variants such as
+ * "Marrakech"/"Marakech" or "Essaouira"/"Esaouira" end on the same term.
+ */
+final class TextAnalyzer {
+
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Set<String> STOP_WORDS = Set.of(
+      "au", "aux", "avec", "ce", "ces", "dans", "de", "des", "du", "en", "et", "la", "le", "les", "leur", "par",
+      "pour", "sur", "un", "une", "the", "of", "and");
+
+  private TextAnalyzer() {
+  }
+
+  /** Lower case without accents: "Théâtre Œuvre" becomes "theatre oeuvre". */
+  static String fold(String text) {
+    if (text == null) return "";
+    String lower = text.toLowerCase(Locale.ROOT).replace("œ", "oe").replace("æ", "ae").replace("ß", "ss");
+    return MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+  }
+
+  /** Folded text with every run of separators turned into one space. */
+  static String normalize(String text) {
+    return SEPARATORS.matcher(fold(text)).replaceAll(" ").trim();
+  }
+
+  /** Distinct index terms of the texts, in order of appearance. */
+  static Set<String> terms(String... texts) {
+    Set<String> out = new LinkedHashSet<>();
+    for (String text : texts) {
+      if (text == null) continue;
+      for (String word : SEPARATORS.split(fold(text))) {
+        // single letters are elisions (l', d') or initials
+        if (word.length() < 2 && !Character.isDigit(word.isEmpty() ? 'x' : word.charAt(0))) continue;
+        if (STOP_WORDS.contains(word)) continue;
+        out.add(stem(word));
+      }
+    }
+    return out;
+  }
+
+  /** Folded words of the text, stop words and single letters included, unstemmed. */
+  static Set<String> words(String text) {
+    Set<String> out = new LinkedHashSet<>();
+    for (String word : SEPARATORS.split(fold(text))) {
+      if (!word.isEmpty()) out.add(word);
+    }
+    return out;
+  }
+
+  /**
+   * Light stemmer: plural and final mute e go, then doubled letters collapse
+   * ("théâtres" and "theatre" both give "theatr", "festivaux" gives "festival").
+   */
+  static String stem(String word) {
+    String w = word;
+    if (Character.isDigit(w.charAt(0))) return w;
+    if (w.length() > 4 && w.endsWith("aux")) w = w.substring(0, w.length() - 3) + "al";
+    else if (w.length() > 3 && (w.endsWith("s") || w.endsWith("x"))) w = w.substring(0, w.length() - 1);
+    if (w.length() > 4 && w.endsWith("e")) w = w.substring(0, w.length() - 1);
+    StringBuilder out = new StringBuilder(w.length());
+    for (int i = 0; i < w.length(); i++) {
+      if (i == 0 || w.charAt(i) != w.charAt(i - 1)) out.append(w.charAt(i));
+    }
+    return out.toString();
+  }
+
+  /** Character trigrams of the term padded with boundary marks: "fes" gives "^fe", "fes", "es$". */
+  static List<String> grams(String term) {
+    String padded = "^" + term + "$";
+    List<String> out = new ArrayList<>(padded.length());
+    for (int i = 0; i + 3 <= padded.length(); i++) out.add(padded.substring(i, i + 3));
+    return out;
+  }
+
+  /** Typos allowed for a term of this length: none under 4 characters, then one, two from 8. */
+  static int maxEdits(int length) {
+    return length < 4 ? 0 : length < 8 ? 1 : 2;
+  }
+
+  /**
+   * Edit distance with adjacent transpositions (optimal string alignment), or {@code max + 1}
+   * as soon as it is known to exceed {@code max}.
+   */
+  static int distance(String a, String b, int max) {
+    if (Math.abs(a.length() - b.length()) > max) return max + 1;
+    int[] prev2 = new int[b.length() + 1];
+    int[] prev = new int[b.length() + 1];
+    int[] cur = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) prev[j] = j;
+    for (int i = 1; i <= a.length(); i++) {
+      cur[0] = i;
+      int rowMin = cur[0];
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+          v = Math.min(v, prev2[j - 2] + 1);
+        }
+        cur[j] = v;
+        rowMin = Math.min(rowMin, v);
+      }
+      if (rowMin > max) return max + 1;
+      int[] t = prev2;
+      prev2 = prev;
+      prev = cur;
+      cur = t;
+    }
+    return Math.min(prev[b.length()], max + 1);
+  }
+}
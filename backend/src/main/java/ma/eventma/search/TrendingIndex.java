@@ -0,0 +1,262 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+import ma.eventma.repository.StatistiqueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * "Trending" ranking of published events: views and confirmed reservations (weighted) with exponential
+ * decay, half-life {@code half-life-hours}. Forward decay: an activity at time t adds
+ * {@code w * exp(lambda * (t - landmark))}, so scores only grow and comparing them is comparing decayed
+ * values. That keeps a top-{@value #K} overall, per region, per category and per region and category exact
+ * under increments, maintained as activity arrives and read without sorting anything.
+ * <p>
+ * Seeded from {@code statistiques} over the last {@code window-days}, then rebuilt every
+ * {@code rebuild-minutes}, which also moves the landmark and folds in activity recorded by other nodes.
+ */
+@Component
+public class TrendingIndex {
+
+  public static final int K = 100;
+  private static final Logger log = LoggerFactory.getLogger(TrendingIndex.class);
+  private static final Comparator<Entry> HOTTEST = Comparator.comparingDouble((Entry e) -> e.score).reversed()
+      .thenComparingLong(e -> e.eventId);
+
+  private final StatistiqueRepository statistiqueRepository;
+  private final EventIndex index;
+  private final TaskExecutor executor;
+  private final double lambdaPerMs;
+  private final double reservationWeight;
+  private final int windowDays;
+  private final AtomicReference<State> state = new AtomicReference<>();
+
+  public TrendingIndex(StatistiqueRepository statistiqueRepository, EventIndex index,
+                       @Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                       @Value("${app.trending.half-life-hours:24}") double halfLifeHours,
+                       @Value("${app.trending.reservation-weight:5}") double reservationWeight,
+                       @Value("${app.trending.window-days:14}") int windowDays) {
+    this.statistiqueRepository = statistiqueRepository;
+    this.index = index;
+    this.executor = executor;
+    this.lambdaPerMs = Math.log(2) / (halfLifeHours * 3_600_000);
+    this.reservationWeight = reservationWeight;
+    this.windowDays = windowDays;
+  }
+
+  public boolean isReady() {
+    return state.get() != null;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildAsync() {
+    executor.execute(this::rebuild);
+  }
+
+  @Scheduled(fixedDelayString = "${app.trending.rebuild-minutes:15}", initialDelayString = "${app.trending.rebuild-minutes:15}",
+      timeUnit = TimeUnit.MINUTES)
+  public void scheduledRebuild() {
+    // off the scheduler threads, which admissions and hold expiry share
+    rebuildAsync();
+  }
+
+  public void rebuild() {
+    try {
+      long now = System.currentTimeMillis();
+      State next = new State(now);
+      for (var row : statistiqueRepository.findActivitySince(LocalDate.now().minusDays(windowDays))) {
+        // a past day counts at its midday, today as of now
+        long at = row.getJour().equals(LocalDate.now()) ? now
+            : row.getJour().atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        double w = row.getVues() + reservationWeight * Math.max(0, row.getReservations());
+        if (w > 0) next.entry(row.getEventId(), row.getRegionId(), row.getCategorieId()).score += w * next.decay(at, lambdaPerMs);
+      }
+      next.entries.values().forEach(next::offer);
+      state.set(next);
+    } catch (RuntimeException ex) {
+      log.error("Calcul des tendances impossible", ex);
+    }
+  }
+
+  public void recordViews(Long eventId, long n) {
+    record(eventId, n);
+  }
+
+  public void recordReservations(Long eventId, long n) {
+    if (n > 0) record(eventId, reservationWeight * n);
+  }
+
+  /** Follows organizer edits: a new region or category moves the event between groups. */
+  public void upsert(EventDtos.EventSummary e) {
+    State s = state.get();
+    if (s == null) return;
+    Entry entry = s.entries.get(e.id());
+    if (entry == null || (entry.regionId.equals(e.regionId()) && entry.categoryId.equals(e.categorieId()))) return;
+    s.drop(entry);
+    synchronized (entry) {
+      entry.regionId = e.regionId();
+      entry.categoryId = e.categorieId();
+    }
+    s.entries.put(entry.eventId, entry);
+    s.offer(entry);
+  }
+
+  public void remove(Long eventId) {
+    State s = state.get();
+    if (s == null) return;
+    Entry entry = s.entries.get(eventId);
+    if (entry != null) s.drop(entry);
+  }
+
+  /** Hottest event ids, best first, at most {@value #K}; null region or category means any. */
+  public List<Long> top(Long regionId, Long categoryId, int limit) {
+    State s = state.get();
+    TopK group = s == null ? null : s.groups.get(new Group(regionId, categoryId));
+    Entry[] top = group == null ? new Entry[0] : group.top;
+    List<Long> out = new ArrayList<>(Math.min(limit, top.length));
+    for (int i = 0; i < top.length && i < limit; i++) out.add(top[i].eventId);
+    return out;
+  }
+
+  /**
+   * By score (0 when inactive), then views, for ranking {@code hits}. Scores are copied first: they keep
+   * growing under view traffic, and a sort must see each one fixed.
+   */
+  public Comparator<EventDtos.EventSummary> comparator(Collection<EventDtos.EventSummary> hits) {
+    State s = state.get();
+    Map<Long, Double> scores = new HashMap<>();
+    if (s != null) {
+      for (var e : hits) {
+        Entry entry = s.entries.get(e.id());
+        if (entry != null) scores.put(e.id(), entry.score);
+      }
+    }
+    return Comparator.comparingDouble((EventDtos.EventSummary e) -> scores.getOrDefault(e.id(), 0.0)).reversed()
+        .thenComparing(EventSort.VIEWS.comparator());
+  }
+
+  private void record(Long eventId, double w) {
+    State s = state.get();
+    if (s == null || w <= 0) return;
+    Entry entry = s.entries.get(eventId);
+    if (entry == null) {
+      var summary = index.get(eventId);
+      // only published events are ranked
+      if (summary == null) return;
+      entry = s.entry(eventId, summary.regionId(), summary.categorieId());
+    }
+    synchronized (entry) {
+      entry.score += w * s.decay(System.currentTimeMillis(), lambdaPerMs);
+    }
+    s.offer(entry);
+  }
+
+  private static final class Entry {
+    final long eventId;
+    volatile Long regionId;
+    volatile Long categoryId;
+    volatile double score;
+
+    Entry(long eventId, Long regionId, Long categoryId) {
+      this.eventId = eventId;
+      this.regionId = regionId;
+      this.categoryId = categoryId;
+    }
+  }
+
+  private static final class State {
+    final long landmark;
+    final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    final Map<Group, TopK> groups = new ConcurrentHashMap<>();
+
+    State(long landmark) {
+      this.landmark = landmark;
+    }
+
+    double decay(long at, double lambdaPerMs) {
+      return Math.exp(lambdaPerMs * (at - landmark));
+    }
+
+    Entry entry(Long eventId, Long regionId, Long categoryId) {
+      return entries.computeIfAbsent(eventId, id -> new Entry(id, regionId, categoryId));
+    }
+
+    void offer(Entry e) {
+      for (Group g : Group.of(e)) groups.computeIfAbsent(g, k -> new TopK()).offer(e);
+    }
+
+    /** Takes the event out of every list, refilling them from the remaining entries (rare: unpublish, move). */
+    void drop(Entry e) {
+      entries.remove(e.eventId);
+      for (Group g : Group.of(e)) {
+        TopK top = groups.get(g);
+        if (top != null) top.remove(e, () -> entries.values().stream().filter(g::contains));
+      }
+    }
+  }
+
+  private record Group(Long regionId, Long categoryId) {
+    static List<Group> of(Entry e) {
+      Long r = e.regionId, c = e.categoryId;
+      return List.of(new Group(null, null), new Group(r, null), new Group(null, c), new Group(r, c));
+    }
+
+    boolean contains(Entry e) {
+      return (regionId == null || regionId.equals(e.regionId)) && (categoryId == null || categoryId.equals(e.categoryId));
+    }
+  }
+
+  /**
+   * Best {@value #K} entries, best first, published as a new array on each change so readers never lock.
+   * Scores only grow, so an entry outside the list can only get in through its own {@link #offer}.
+   */
+  private static final class TopK {
+    volatile Entry[] top = new Entry[0];
+
+    synchronized void offer(Entry e) {
+      Entry[] cur = top;
+      int at = -1;
+      for (int i = 0; i < cur.length; i++) {
+        if (cur[i] == e) {
+          at = i;
+          break;
+        }
+      }
+      if (at < 0 && cur.length == K && HOTTEST.compare(e, cur[K - 1]) >= 0) return;
+      List<Entry> next = new ArrayList<>(Arrays.asList(cur));
+      if (at >= 0) next.remove(at);
+      int pos = 0;
+      while (pos < next.size() && HOTTEST.compare(next.get(pos), e) < 0) pos++;
+      next.add(pos, e);
+      if (next.size() > K) next.remove(K);
+      top = next.toArray(new Entry[0]);
+    }
+
+    synchronized void remove(Entry e, Supplier<Stream<Entry>> candidates) {
+      if (Arrays.stream(top).noneMatch(x -> x == e)) return;
+      top = candidates.get().filter(x -> x != e).sorted(HOTTEST).limit(K).toArray(Entry[]::new);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package ma.eventma.service;
+
+import ma.eventma.repository.EventRepository;
+import ma.eventma.repository.OfferRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the offer summary of each event ({@code prix_min}, {@code prix_max}, {@code places_restantes},
+ * {@code complet}) so searches can filter and sort on it without joining offers. Offers count while on sale
+ * (not expired); the price range only covers those with seats left, as the "from" price of a listing card.
+ * <p>
+ * Purchases never touch the event row: each committed {@link OfferChanged} marks its event, and
+ * {@link #refresh()} recomputes the marked events from their offers every {@code refresh-ms}, in short
+ * transactions of its own. Expiries, and anything changed outside these paths, are caught by
+ * {@link #repairAll()} at startup and every night. Every write sets {@code updated_at}, so the search
+ * index of the other nodes picks it up at its next sync.
+ */
+@Service
+public class EventAvailability {
+
+  private static final Logger log = LoggerFactory.getLogger(EventAvailability.class);
+  private static final BigDecimal NO_PRICE = BigDecimal.valueOf(-1);
+  private static final int REFRESH_CHUNK = 500;
+
+  private final EventRepository eventRepository;
+  private final OfferRepository offerRepository;
+  private final TaskExecutor executor;
+  private final ApplicationEventPublisher events;
+  private final TransactionTemplate snapshotTx;
+  private final TransactionTemplate writeTx;
+  private final int chunkSize;
+  private final Set<Long> offersMoved = ConcurrentHashMap.newKeySet();
+  private final Set<Long> eventsMoved = ConcurrentHashMap.newKeySet();
+
+  public EventAvailability(EventRepository eventRepository, OfferRepository offerRepository,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor executor, ApplicationEventPublisher events,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.event-availability.chunk-size:1000}") int chunkSize) {
+    this.eventRepository = eventRepository;
+    this.offerRepository = offerRepository;
+    this.executor = executor;
+    this.events = events;
+    this.snapshotTx = new TransactionTemplate(transactionManager);
+    this.snapshotTx.setReadOnly(true);
+    this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.writeTx = new TransactionTemplate(transactionManager);
+    this.chunkSize = chunkSize;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void on(OfferChanged change) {
+    // offerId null: published by this class once the summary is recomputed
+    if (change.offerId() == null) return;
+    if (change.eventId() != null) eventsMoved.add(change.eventId());
+    else offersMoved.add(change.offerId());
+  }
+
+  /** Recomputes the events marked since the last run, {@value #REFRESH_CHUNK} per statement, in id order. */
+  @Scheduled(fixedDelayString = "${app.event-availability.refresh-ms:1000}")
+  public void refresh() {
+    if (offersMoved.isEmpty() && eventsMoved.isEmpty()) return;
+    Set<Long> offers = drain(offersMoved);
+    Set<Long> eventIds = drain(eventsMoved);
+    try {
+      writeTx.executeWithoutResult(status -> {
+        TreeSet<Long> ids = new TreeSet<>(eventIds);
+        if (!offers.isEmpty()) ids.addAll(offerRepository.findEventIds(offers));
+        List<Long> sorted = new ArrayList<>(ids);
+        for (int from = 0; from < sorted.size(); from += REFRESH_CHUNK) {
+          List<Long> chunk = sorted.subList(from, Math.min(sorted.size(), from + REFRESH_CHUNK));
+          eventRepository.refreshAvailability(chunk, LocalDate.now(), LocalDateTime.now());
+          eventRepository.refreshComplet(chunk, LocalDate.now());
+        }
+        // the search index and response caches reload the events after commit
+        for (Long id : sorted) events.publishEvent(new OfferChanged(null, id));
+      });
+    } catch (RuntimeException ex) {
+      offersMoved.addAll(offers);
+      eventsMoved.addAll(eventIds);
+      log.warn("Disponibilités non recalculées, nouvel essai au prochain passage", ex);
+    }
+  }
+
+  private static Set<Long> drain(Set<Long> pending) {
+    Set<Long> out = new HashSet<>();
+    for (Long id : pending) {
+      pending.remove(id);
+      out.add(id);
+    }
+    return out;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void repairAsync() {
+    executor.execute(this::repairAll);
+  }
+
+  @Scheduled(cron = "${app.event-availability.cron:0 5 0 * * *}")
+  public void scheduledRepair() {
+    // a full table walk: off the scheduler threads
+    repairAsync();
+  }
+
+  /**
+   * Recomputes every event from its offers, by keyset pages read in one snapshot each; writes are
+   * compare-and-set on the values read, so a live seat movement in the meantime is never overwritten.
+   */
+  public void repairAll() {
+    try {
+      long after = 0;
+      int repaired = 0;
+      while (true) {
+        long from = after;
+        List<Repair> repairs = new ArrayList<>();
+        Long last = snapshotTx.execute(status -> scanChunk(from, repairs));
+        if (last == null) break;
+        if (!repairs.isEmpty()) repaired += writeTx.execute(status -> apply(repairs));
+        after = last;
+      }
+      if (repaired > 0) log.info("Disponibilités: {} évènement(s) recalculé(s)", repaired);
+    } catch (RuntimeException ex) {
+      log.error("Recalcul des disponibilités interrompu", ex);
+    }
+  }
+
+  private record Repair(Long id, int observedPlaces, BigDecimal observedMin, BigDecimal observedMax,
+                        BigDecimal prixMin, BigDecimal prixMax, int places, boolean complet) {
+  }
+
+  private Long scanChunk(long afterId, List<Repair> repairs) {
+    var events = eventRepository.findAvailabilityAfter(afterId, PageRequest.ofSize(chunkSize));
+    if (events.isEmpty()) return null;
+    Long first = events.get(0).getId();
+    Long last = events.get(events.size() - 1).getId();
+
+    Map<Long, OfferRepository.OnSale> onSale = new HashMap<>();
+    for (var row : offerRepository.summarizeOnSale(first, last, LocalDate.now())) onSale.put(row.getEventId(), row);
+    for (var e : events) {
+      var expected = onSale.get(e.getId());
+      BigDecimal min = expected == null ? null : expected.getPrixMin();
+      BigDecimal max = expected == null ? null : expected.getPrixMax();
+      int places = expected == null ? 0 : expected.getPlaces().intValue();
+      // offers on sale, none with seats left
+      boolean complet = expected != null && places <= 0;
+      if (e.getPlacesRestantes() != places || !sameAmount(e.getPrixMin(), min) || !sameAmount(e.getPrixMax(), max)
+          || !Boolean.valueOf(complet).equals(e.getComplet())) {
+        repairs.add(new Repair(e.getId(), e.getPlacesRestantes(), e.getPrixMin(), e.getPrixMax(), min, max, places, complet));
+      }
+    }
+    return last;
+  }
+
+  private int apply(List<Repair> repairs) {
+    int n = 0;
+    for (Repair r : repairs) {
+      if (eventRepository.repairAvailability(r.id(), r.observedPlaces(), Objects.requireNonNullElse(r.observedMin(), NO_PRICE),
+          Objects.requireNonNullElse(r.observedMax(), NO_PRICE), r.prixMin(), r.prixMax(), r.places(),
+          r.complet(), LocalDateTime.now()) == 1) {
+        // the search index and response caches reload the event after commit
+        events.publishEvent(new OfferChanged(null, r.id()));
+        n++;
+      }
+    }
+    return n;
+  }
+
+  private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+    return a == null ? b == null : b != null && a.compareTo(b) == 0;
+  }
+}
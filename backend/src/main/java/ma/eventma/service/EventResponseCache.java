@@ -0,0 +1,104 @@
+package ma.eventma.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ma.eventma.dto.OfferDtos;
+import ma.eventma.repository.EventRepository;
+import ma.eventma.search.EventChanged;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Serialized bodies of the public event page ({@code /api/events/{id}} and its offers), bounded by
+ * {@code max-bytes}. Entries are evicted after commit by organizer edits ({@link EventChanged},
+ * {@link OfferChanged}) and seat movements; edits made on another node show up after {@code ttl-seconds}.
+ * The view counter inside the detail body is refreshed at the same pace.
+ * <p>
+ * Stamps are {@code W/"<updatedAt>-<crc32 of the body>"}: the body hash stands for the offer availability,
+ * the view counter and names changed elsewhere (category, region), and is the same on every node.
+ * No Last-Modified: seats and views move without touching the event's updatedAt.
+ */
+@Service
+public class EventResponseCache {
+
+  public record Entry(byte[] body, String etag) {
+  }
+
+  private record Key(Long eventId, boolean offers) {
+  }
+
+  private final EventService eventService;
+  private final EventRepository eventRepository;
+  private final ObjectMapper json;
+  private final Cache<Key, Entry> cache;
+  /** Offer id -> event id, learnt from the cached offer lists, so a seat movement finds the entry to evict. */
+  private final Cache<Long, Long> offerEvents = Caffeine.newBuilder().maximumSize(100_000).build();
+
+  public EventResponseCache(EventService eventService, EventRepository eventRepository, ObjectMapper json,
+                            @Value("${app.event-cache.max-bytes:16777216}") long maxBytes,
+                            @Value("${app.event-cache.ttl-seconds:30}") long ttlSeconds) {
+    this.eventService = eventService;
+    this.eventRepository = eventRepository;
+    this.json = json;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((Key k, Entry e) -> e.body().length + 64)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .build();
+  }
+
+  /** Throws like {@link EventService#getById} for unknown or unpublished events; failures are not cached. */
+  public Entry detail(Long eventId) {
+    return cache.get(new Key(eventId, false), k -> {
+      var detail = eventService.getById(eventId);
+      return entry(detail, updatedAt(eventId));
+    });
+  }
+
+  public Entry offers(Long eventId) {
+    return cache.get(new Key(eventId, true), k -> {
+      List<OfferDtos.OfferSummary> offers = eventService.offers(eventId);
+      offers.forEach(o -> offerEvents.put(o.id(), eventId));
+      return entry(offers, updatedAt(eventId));
+    });
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void on(EventChanged change) {
+    cache.invalidate(new Key(change.eventId(), false));
+    cache.invalidate(new Key(change.eventId(), true));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void on(OfferChanged change) {
+    Long eventId = change.eventId() != null ? change.eventId() : offerEvents.getIfPresent(change.offerId());
+    if (eventId != null) cache.invalidate(new Key(eventId, true));
+  }
+
+  private long updatedAt(Long eventId) {
+    return eventRepository.lastModified(eventId)
+        .map(t -> t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+        .orElse(-1L);
+  }
+
+  private Entry entry(Object dto, long updatedAt) {
+    byte[] body;
+    try {
+      body = json.writeValueAsBytes(dto);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    String stamp = Long.toString(Math.max(updatedAt, 0), 36) + "-" + Long.toHexString(crc.getValue());
+    return new Entry(body, "W/\"" + stamp + "\"");
+  }
+}
@@ -1,60 +1,227 @@
 package ma.eventma.service;
 
 import ma.eventma.dto.EventDtos;
+import ma.eventma.dto.OfferDtos;
 import ma.eventma.model.Event;
 import ma.eventma.model.EventStatus;
 import ma.eventma.repository.EventRepository;
+import ma.eventma.repository.OfferRepository;
+import ma.eventma.search.EventCursor;
+import ma.eventma.search.EventIndex;
+import ma.eventma.search.EventSort;
+import ma.eventma.search.PriceFilter;
+import ma.eventma.search.SuggestIndex;
+import ma.eventma.search.TrendingIndex;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.criteria.Predicate;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class EventService {
 
+  private static final int MAX_PAGE_SIZE = 100;
+  private static final int MAX_OFFER_BATCH = 50;
+  private static final String TRENDING = "trending";
+
   private final EventRepository eventRepository;
+  private final OfferRepository offerRepository;
+  private final ViewCounter views;
+  private final RepeatViewFilter repeatViews;
+  private final EventIndex index;
+  private final SuggestIndex suggestions;
+  private final TrendingIndex trending;
 
-  public EventService(EventRepository eventRepository) {
+  public EventService(EventRepository eventRepository, OfferRepository offerRepository, ViewCounter views,
+                      RepeatViewFilter repeatViews, EventIndex index, SuggestIndex suggestions, TrendingIndex trending) {
     this.eventRepository = eventRepository;
+    this.offerRepository = offerRepository;
+    this.views = views;
+    this.repeatViews = repeatViews;
+    this.index = index;
+    this.suggestions = suggestions;
+    this.trending = trending;
   }
 
   public List<EventDtos.EventSummary> search(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo, String sort) {
-    Specification<Event> spec = (root, query, cb) -> {
+    return search(q, regionId, categoryId, dateFrom, dateTo, PriceFilter.NONE, sort);
+  }
+
+  /** {@code sort=trending} ranks by {@link TrendingIndex}; until it is loaded, by views. */
+  public List<EventDtos.EventSummary> search(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo,
+                                             PriceFilter price, String sort) {
+    if (TRENDING.equalsIgnoreCase(sort)) {
+      if (!index.isReady() || !trending.isReady()) sort = EventSort.VIEWS.name();
+      else return trending(q, regionId, categoryId, dateFrom, dateTo, price, Integer.MAX_VALUE);
+    }
+    if (index.isReady()) return index.search(q, regionId, categoryId, dateFrom, dateTo, price, sort);
+
+    // index still loading: same filters in SQL
+    return eventRepository.findSummaries(filters(q, regionId, categoryId, dateFrom, dateTo, price), EventSort.parse(sort).sql(), 0);
+  }
+
+  /**
+   * Keyset page: {@code cursor} is the {@code nextCursor} of the previous page, null for the first one.
+   * {@code facets} adds region, category, week and month counts over the whole result set (index only).
+   * {@code sort=trending} returns a single page, the hottest events first: scores move too fast for a cursor.
+   */
+  public EventDtos.EventPage page(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo, PriceFilter price,
+                                  String sort, String cursor, int limit, boolean facets) {
+    int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    if (TRENDING.equalsIgnoreCase(sort)) {
+      if (!index.isReady() || !trending.isReady()) sort = EventSort.VIEWS.name();
+      else {
+        var counts = facets ? index.page(q, regionId, categoryId, dateFrom, dateTo, price, EventSort.ID, null, 1, true).facets() : null;
+        return new EventDtos.EventPage(trending(q, regionId, categoryId, dateFrom, dateTo, price, size), null, counts);
+      }
+    }
+    EventSort order = EventSort.parse(sort);
+    EventDtos.EventSummary after = cursor == null || cursor.isBlank() ? null : EventCursor.decode(cursor, order);
+
+    // one extra row tells whether there is a next page
+    List<EventDtos.EventSummary> rows;
+    EventDtos.Facets counts = null;
+    if (index.isReady()) {
+      var hits = index.page(q, regionId, categoryId, dateFrom, dateTo, price, order, after, size + 1, facets);
+      rows = hits.items();
+      counts = hits.facets();
+    } else {
+      rows = eventRepository.findSummaries(filters(q, regionId, categoryId, dateFrom, dateTo, price).and(after(order, after)),
+          order.sql(), size + 1);
+    }
+    if (rows.size() <= size) return new EventDtos.EventPage(rows, null, counts);
+    rows = rows.subList(0, size);
+    return new EventDtos.EventPage(rows, EventCursor.encode(order, rows.get(size - 1)), counts);
+  }
+
+  /**
+   * Without text, dates or price filters, reads the maintained top list of the region/category; with them, or
+   * when fewer events were active than asked for, ranks every hit by score, then views.
+   */
+  private List<EventDtos.EventSummary> trending(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo,
+                                                PriceFilter price, int limit) {
+    boolean unfiltered = (q == null || q.isBlank()) && dateFrom == null && dateTo == null && price == PriceFilter.NONE;
+    if (unfiltered && limit <= TrendingIndex.K) {
+      List<EventDtos.EventSummary> out = new ArrayList<>(limit);
+      for (Long id : trending.top(regionId, categoryId, limit)) {
+        var e = index.get(id);
+        if (e != null) out.add(e);
+      }
+      if (out.size() == limit) return out;
+    }
+    List<EventDtos.EventSummary> hits = new ArrayList<>(index.search(q, regionId, categoryId, dateFrom, dateTo, price, EventSort.VIEWS.name()));
+    hits.sort(trending.comparator(hits));
+    return hits.size() > limit ? hits.subList(0, limit) : hits;
+  }
+
+  private static Specification<Event> filters(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo,
+                                              PriceFilter price) {
+    return (root, query, cb) -> {
       List<Predicate> preds = new ArrayList<>();
       preds.add(cb.equal(root.get("statut"), EventStatus.PUBLIE));
       if (q != null && !q.isBlank()) {
         String like = "%" + q.toLowerCase() + "%";
         preds.add(cb.or(
             cb.like(cb.lower(root.get("titre")), like),
-            cb.like(cb.lower(root.get("lieu")), like)
+            cb.like(cb.lower(root.get("lieu")), like),
+            cb.like(cb.lower(root.get("description")), like)
         ));
       }
       if (regionId != null) preds.add(cb.equal(root.get("region").get("id"), regionId));
       if (categoryId != null) preds.add(cb.equal(root.get("categorie").get("id"), categoryId));
       if (dateFrom != null) preds.add(cb.greaterThanOrEqualTo(root.get("dateEvent"), dateFrom));
       if (dateTo != null) preds.add(cb.lessThanOrEqualTo(root.get("dateEvent"), dateTo));
-
-      if (sort != null) {
-        if ("date_asc".equalsIgnoreCase(sort)) query.orderBy(cb.asc(root.get("dateEvent")), cb.asc(root.get("heureDebut")));
-        else if ("date_desc".equalsIgnoreCase(sort)) query.orderBy(cb.desc(root.get("dateEvent")), cb.desc(root.get("heureDebut")));
-        else if ("views".equalsIgnoreCase(sort)) query.orderBy(cb.desc(root.get("nbVues")));
-      }
+      if (price.min() != null) preds.add(cb.greaterThanOrEqualTo(root.get("prixMax"), price.min()));
+      if (price.max() != null) preds.add(cb.lessThanOrEqualTo(root.get("prixMin"), price.max()));
+      if (price.availableOnly()) preds.add(cb.greaterThan(root.get("placesRestantes"), 0));
       return cb.and(preds.toArray(new Predicate[0]));
     };
+  }
+
+  /** Rows strictly after the cursor key, in the order of {@link EventSort#sql()}. */
+  private static Specification<Event> after(EventSort order, EventDtos.EventSummary key) {
+    return (root, query, cb) -> {
+      if (key == null) return cb.conjunction();
+      var id = cb.greaterThan(root.<Long>get("id"), key.id());
+      return switch (order) {
+        case ID -> id;
+        case VIEWS -> cb.or(cb.lessThan(root.get("nbVues"), key.nbVues()),
+            cb.and(cb.equal(root.get("nbVues"), key.nbVues()), id));
+        case DATE_ASC -> cb.or(cb.greaterThan(root.get("dateEvent"), key.dateEvent()),
+            cb.and(cb.equal(root.get("dateEvent"), key.dateEvent()),
+                cb.or(cb.greaterThan(root.get("heureDebut"), key.heureDebut()),
+                    cb.and(cb.equal(root.get("heureDebut"), key.heureDebut()), id))));
+        case DATE_DESC -> cb.or(cb.lessThan(root.get("dateEvent"), key.dateEvent()),
+            cb.and(cb.equal(root.get("dateEvent"), key.dateEvent()),
+                cb.or(cb.lessThan(root.get("heureDebut"), key.heureDebut()),
+                    cb.and(cb.equal(root.get("heureDebut"), key.heureDebut()), id))));
+        // nulls last
+        case PRICE_ASC -> key.prixMin() == null
+            ? cb.and(cb.isNull(root.get("prixMin")), id)
+            : cb.or(cb.greaterThan(root.get("prixMin"), key.prixMin()),
+                cb.and(cb.equal(root.get("prixMin"), key.prixMin()), id),
+                cb.isNull(root.get("prixMin")));
+      };
+    };
+  }
 
-    return eventRepository.findAll(spec).stream().map(EventService::toSummary).toList();
+  /** Empty until the suggestion index is loaded: no SQL fallback on a per-keystroke path. */
+  public List<EventDtos.Suggestion> suggest(String prefix, int limit) {
+    return suggestions.suggest(prefix, Math.max(1, Math.min(limit, SuggestIndex.K)));
   }
 
   public EventDtos.EventDetail getById(Long id) {
-    Event e = eventRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
-    if (e.getStatut() != EventStatus.PUBLIE) {
+    EventDtos.EventDetail e = eventRepository.findDetail(id).orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
+    if (!EventStatus.PUBLIE.name().equals(e.statut())) {
       throw new IllegalArgumentException("Event non publié");
     }
-    return toDetail(e);
+    return e;
+  }
+
+  /** Offers still on sale for the event page. */
+  public List<OfferDtos.OfferSummary> offers(Long eventId) {
+    return offerRepository.findOnSale(eventId, LocalDate.now());
+  }
+
+  /**
+   * Offers on sale of up to {@value #MAX_OFFER_BATCH} events in one query, in the order asked; unknown or
+   * unpublished events come back with no offers.
+   */
+  public List<OfferDtos.EventOffers> offers(Collection<Long> eventIds) {
+    Set<Long> ids = new LinkedHashSet<>(eventIds);
+    ids.remove(null);
+    if (ids.isEmpty()) throw new IllegalArgumentException("Aucun évènement demandé");
+    if (ids.size() > MAX_OFFER_BATCH) throw new IllegalArgumentException("Trop d'évènements demandés (max " + MAX_OFFER_BATCH + ")");
+
+    Map<Long, List<OfferDtos.OfferSummary>> byEvent = new HashMap<>();
+    for (var o : offerRepository.findOnSaleByEventIds(ids, LocalDate.now())) {
+      byEvent.computeIfAbsent(o.eventId(), k -> new ArrayList<>()).add(o);
+    }
+    List<OfferDtos.EventOffers> out = new ArrayList<>(ids.size());
+    for (Long id : ids) {
+      List<OfferDtos.OfferSummary> offers = byEvent.getOrDefault(id, List.of());
+      BigDecimal prixMin = null;
+      int places = 0;
+      LocalDate expiration = null;
+      for (var o : offers) {
+        int left = o.placesDisponibles() == null ? 0 : o.placesDisponibles();
+        places += left;
+        if (left > 0 && (prixMin == null || o.prix().compareTo(prixMin) < 0)) prixMin = o.prix();
+        if (o.dateExpiration() != null && (expiration == null || o.dateExpiration().isBefore(expiration))) expiration = o.dateExpiration();
+      }
+      out.add(new OfferDtos.EventOffers(id, prixMin, places, expiration, offers));
+    }
+    return out;
   }
 
   public static EventDtos.EventSummary toSummary(Event e) {
@@ -63,7 +230,8 @@ public class EventService {
         e.getNbVues(), e.getStatut().name(),
         e.getCategorie().getId(), e.getCategorie().getNom(),
         e.getRegion().getId(), e.getRegion().getNom(),
-        e.getOrganisateur().getId(), e.getOrganisateur().getNom() + " " + e.getOrganisateur().getPrenom()
+        e.getOrganisateur().getId(), e.getOrganisateur().getNom() + " " + e.getOrganisateur().getPrenom(),
+        e.getPrixMin(), e.getPrixMax(), e.getPlacesRestantes(), e.getComplet()
     );
   }
 
@@ -77,10 +245,17 @@ public class EventService {
     );
   }
 
-  @Transactional
-  public void incrementView(Event e) {
-    e.setNbVues((e.getNbVues() == null ? 0 : e.getNbVues()) + 1);
-    eventRepository.save(e);
+  /**
+   * No database work for published events: counted by {@link ViewCounter}, reflected at once in the
+   * search index and trending. Other ids cost an existence check. Repeats of the same visitor within
+   * the window of {@link RepeatViewFilter} are not counted anywhere.
+   */
+  public void recordView(Long id, String visitor) {
+    if (index.get(id) == null && !eventRepository.existsById(id)) throw new IllegalArgumentException("Event introuvable");
+    if (!repeatViews.firstView(id, visitor)) return;
+    views.record(id, visitor);
+    index.addViews(id, 1);
+    trending.recordViews(id, 1);
   }
 
   public Event getEntityById(Long id) {
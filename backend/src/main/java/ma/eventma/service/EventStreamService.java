@@ -0,0 +1,126 @@
+package ma.eventma.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ma.eventma.dto.EventDtos;
+import ma.eventma.search.EventSort;
+import ma.eventma.search.PriceFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the full result of a public search as a JSON array, row by row from a forward-only
+ * result set ({@code app.search.stream-fetch-size} rows per round trip, with {@code useCursorFetch}
+ * on MySQL), so memory does not grow with the catalog.
+ */
+@Service
+public class EventStreamService {
+
+  private static final String SELECT = """
+      SELECT e.id, e.titre, e.description, e.date_event, e.heure_debut, e.lieu, e.image_url, e.nb_vues, e.statut,
+             c.id AS categorie_id, c.nom AS categorie_nom, r.id AS region_id, r.nom AS region_nom,
+             u.id AS organisateur_id, u.nom AS organisateur_nom, u.prenom AS organisateur_prenom,
+             e.prix_min, e.prix_max, e.places_restantes, e.complet
+      FROM events e
+      JOIN categories c ON c.id = e.categorie_id
+      JOIN regions r ON r.id = e.region_id
+      JOIN users u ON u.id = e.organisateur_id
+      WHERE e.statut = 'PUBLIE'""";
+
+  private final JdbcTemplate jdbc;
+  private final ObjectMapper objectMapper;
+
+  public EventStreamService(DataSource dataSource, ObjectMapper objectMapper,
+                            @Value("${app.search.stream-fetch-size:500}") int fetchSize) {
+    this.jdbc = new JdbcTemplate(dataSource);
+    this.jdbc.setFetchSize(fetchSize);
+    this.objectMapper = objectMapper;
+  }
+
+  public void write(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo, PriceFilter price, String sort,
+                    OutputStream out) throws IOException {
+    StringBuilder sql = new StringBuilder(SELECT);
+    List<Object> args = new ArrayList<>();
+    if (q != null && !q.isBlank()) {
+      String like = "%" + q.toLowerCase() + "%";
+      sql.append(" AND (LOWER(e.titre) LIKE ? OR LOWER(e.lieu) LIKE ? OR LOWER(e.description) LIKE ?)");
+      args.add(like);
+      args.add(like);
+      args.add(like);
+    }
+    if (regionId != null) {
+      sql.append(" AND e.region_id = ?");
+      args.add(regionId);
+    }
+    if (categoryId != null) {
+      sql.append(" AND e.categorie_id = ?");
+      args.add(categoryId);
+    }
+    if (dateFrom != null) {
+      sql.append(" AND e.date_event >= ?");
+      args.add(Date.valueOf(dateFrom));
+    }
+    if (dateTo != null) {
+      sql.append(" AND e.date_event <= ?");
+      args.add(Date.valueOf(dateTo));
+    }
+    if (price.min() != null) {
+      sql.append(" AND e.prix_max >= ?");
+      args.add(price.min());
+    }
+    if (price.max() != null) {
+      sql.append(" AND e.prix_min <= ?");
+      args.add(price.max());
+    }
+    if (price.availableOnly()) sql.append(" AND e.places_restantes > 0");
+    sql.append(orderBy(EventSort.parse(sort)));
+
+    try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+      json.writeStartArray();
+      jdbc.query(sql.toString(), rs -> {
+        try {
+          json.writeObject(toSummary(rs));
+        } catch (IOException ex) {
+          // client went away: abort the query instead of reading the rest of the table
+          throw new UncheckedIOException(ex);
+        }
+      }, args.toArray());
+      json.writeEndArray();
+    }
+  }
+
+  private static String orderBy(EventSort sort) {
+    return switch (sort) {
+      case ID -> " ORDER BY e.id";
+      case DATE_ASC -> " ORDER BY e.date_event, e.heure_debut, e.id";
+      case DATE_DESC -> " ORDER BY e.date_event DESC, e.heure_debut DESC, e.id";
+      case VIEWS -> " ORDER BY e.nb_vues DESC, e.id";
+      case PRICE_ASC -> " ORDER BY e.prix_min IS NULL, e.prix_min, e.id";
+    };
+  }
+
+  private static EventDtos.EventSummary toSummary(ResultSet rs) throws SQLException {
+    Time heure = rs.getTime("heure_debut");
+    return new EventDtos.EventSummary(
+        rs.getLong("id"), rs.getString("titre"), rs.getString("description"), rs.getDate("date_event").toLocalDate(),
+        heure == null ? null : heure.toLocalTime(), rs.getString("lieu"), rs.getString("image_url"),
+        rs.getInt("nb_vues"), rs.getString("statut"),
+        rs.getLong("categorie_id"), rs.getString("categorie_nom"),
+        rs.getLong("region_id"), rs.getString("region_nom"),
+        rs.getLong("organisateur_id"), rs.getString("organisateur_nom") + " " + rs.getString("organisateur_prenom"),
+        rs.getBigDecimal("prix_min"), rs.getBigDecimal("prix_max"), rs.getInt("places_restantes"), rs.getBoolean("complet"));
+  }
+}
@@ -0,0 +1,100 @@
+package ma.eventma.service;
+
+import ma.eventma.model.Reservation;
+import ma.eventma.model.ReservationStatus;
+import ma.eventma.repository.ReservationRepository;
+import ma.eventma.support.TimerWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Expires EN_ATTENTE reservations when their hold ends and gives their seats back.
+ * Pending holds sit in a {@link TimerWheel} (1 s ticks), so expiry never scans the reservations
+ * table; the table is read at startup to re-arm holds created before a restart. Holds armed on a node
+ * that died are caught by {@link #sweep()} every {@code app.holds.sweep-ms}; both paths expire through
+ * the same compare-and-set, so a hold is released once.
+ */
+@Service
+public class HoldExpiryService {
+
+  private static final Logger log = LoggerFactory.getLogger(HoldExpiryService.class);
+  private static final int SWEEP_BATCH = 500;
+
+  private final ReservationRepository reservationRepository;
+  private final SeatInventory seatInventory;
+  private final TransactionTemplate tx;
+  private final TimerWheel<Long> wheel = new TimerWheel<>(1000, 1024, System.currentTimeMillis());
+
+  public HoldExpiryService(ReservationRepository reservationRepository, SeatInventory seatInventory,
+                           PlatformTransactionManager transactionManager) {
+    this.reservationRepository = reservationRepository;
+    this.seatInventory = seatInventory;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rearmPendingHolds() {
+    for (var hold : reservationRepository.findPendingHolds()) {
+      schedule(hold.getId(), hold.getExpireLe());
+    }
+  }
+
+  public void schedule(Long reservationId, LocalDateTime expireLe) {
+    long deadline = expireLe == null ? 0 : expireLe.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    wheel.schedule(reservationId, deadline);
+  }
+
+  @Scheduled(fixedDelay = 1000)
+  public void tick() {
+    for (Long id : wheel.advance(System.currentTimeMillis())) {
+      try {
+        tx.executeWithoutResult(status -> expire(id));
+      } catch (RuntimeException ex) {
+        log.warn("Expiration de la réservation {} impossible", id, ex);
+      }
+    }
+  }
+
+  /** Backstop for holds no live node has armed: expired ones, by batches, through {@link #expire}. */
+  @Scheduled(fixedDelayString = "${app.holds.sweep-ms:60000}", initialDelayString = "${app.holds.sweep-ms:60000}")
+  public void sweep() {
+    List<Long> ids;
+    long total = 0;
+    do {
+      ids = reservationRepository.findExpiredHolds(LocalDateTime.now(), Limit.of(SWEEP_BATCH));
+      int expired = 0;
+      for (Long id : ids) {
+        try {
+          tx.executeWithoutResult(status -> expire(id));
+          expired++;
+        } catch (RuntimeException ex) {
+          log.warn("Expiration de la réservation {} impossible", id, ex);
+        }
+      }
+      total += expired;
+      // a batch that expired nothing would come back identical
+      if (expired == 0) break;
+    } while (ids.size() == SWEEP_BATCH);
+    if (total > 0) log.info("Réservations en attente expirées par balayage: {}", total);
+  }
+
+  private void expire(Long reservationId) {
+    Reservation r = reservationRepository.findById(reservationId).orElse(null);
+    if (r == null || r.getStatut() != ReservationStatus.EN_ATTENTE) return;
+    // loses the race against a concurrent confirm/cancel
+    if (reservationRepository.transition(r.getId(), ReservationStatus.EN_ATTENTE, ReservationStatus.ANNULEE) == 1) {
+      seatInventory.release(r.getOffer().getId(), r.getNbPlaces());
+    }
+  }
+}
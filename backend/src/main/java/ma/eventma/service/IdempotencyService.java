@@ -0,0 +1,149 @@
+package ma.eventma.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ma.eventma.model.IdempotencyKey;
+import ma.eventma.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per (user, Idempotency-Key).
+ * Responses are kept in a bounded, expiring in-memory cache, backed by the idempotency_keys table
+ * which is written in the same transaction as the write itself. Concurrent duplicates on one node
+ * wait on the first execution instead of running again; across nodes the unique key decides.
+ * A key is bound to a fingerprint of the request it came with: reusing it for another request is refused
+ * instead of replaying an unrelated response.
+ */
+@Service
+public class IdempotencyService {
+
+  public record Outcome<T>(T value, boolean replayed) {}
+
+  private record InFlight(String fingerprint, CompletableFuture<Object> result) {}
+
+  private final IdempotencyKeyRepository repo;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate tx;
+  private final Duration ttl;
+  private final Cache<String, InFlight> inFlight;
+
+  public IdempotencyService(IdempotencyKeyRepository repo, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                            @Value("${app.idempotency.max-entries:10000}") long maxEntries,
+                            @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+    this.repo = repo;
+    this.objectMapper = objectMapper;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.ttl = Duration.ofHours(ttlHours);
+    this.inFlight = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+  }
+
+  /** {@code request} is the body the key came with; a replay must carry an equal one. */
+  public <T> Outcome<T> execute(Long userId, String key, Object request, Class<T> type, Supplier<T> action) {
+    if (key.isBlank() || key.length() > 100) throw new IllegalArgumentException("Idempotency-Key invalide");
+    String cacheKey = userId + ":" + key;
+    String fingerprint = fingerprint(request);
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    InFlight existing = inFlight.asMap().putIfAbsent(cacheKey, new InFlight(fingerprint, mine));
+    if (existing != null) {
+      checkSameRequest(existing.fingerprint(), fingerprint);
+      return new Outcome<>(type.cast(await(existing.result())), true);
+    }
+    try {
+      var stored = repo.findByUserIdAndCle(userId, key);
+      if (stored.isPresent()) {
+        checkSameRequest(stored.get().getEmpreinte(), fingerprint);
+        T value = read(stored.get(), type);
+        mine.complete(value);
+        return new Outcome<>(value, true);
+      }
+      try {
+        T value = tx.execute(status -> {
+          T v = action.get();
+          repo.save(IdempotencyKey.builder().userId(userId).cle(key).empreinte(fingerprint).reponse(write(v))
+              .createdAt(LocalDateTime.now()).build());
+          return v;
+        });
+        mine.complete(value);
+        return new Outcome<>(value, false);
+      } catch (DataIntegrityViolationException race) {
+        // another node committed the same key first
+        IdempotencyKey winner = repo.findByUserIdAndCle(userId, key).orElseThrow(() -> race);
+        checkSameRequest(winner.getEmpreinte(), fingerprint);
+        T value = read(winner, type);
+        mine.complete(value);
+        return new Outcome<>(value, true);
+      }
+    } catch (RuntimeException ex) {
+      // failures are not remembered: the client may retry with the same key
+      inFlight.invalidate(cacheKey);
+      mine.completeExceptionally(ex);
+      throw ex;
+    }
+  }
+
+  @Scheduled(fixedDelay = 3_600_000)
+  public void purge() {
+    repo.deleteOlderThan(LocalDateTime.now().minus(ttl));
+  }
+
+  /** Keys stored before fingerprints existed (null) are taken as matching. */
+  private static void checkSameRequest(String stored, String fingerprint) {
+    if (stored != null && !stored.equals(fingerprint)) {
+      throw new IllegalArgumentException("Idempotency-Key déjà utilisée pour une autre requête");
+    }
+  }
+
+  /** SHA-256 of the request type and its JSON. */
+  private String fingerprint(Object request) {
+    try {
+      MessageDigest sha = MessageDigest.getInstance("SHA-256");
+      sha.update(request.getClass().getName().getBytes(StandardCharsets.UTF_8));
+      sha.update(objectMapper.writeValueAsBytes(request));
+      return HexFormat.of().formatHex(sha.digest());
+    } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static Object await(CompletableFuture<Object> f) {
+    try {
+      return f.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException re) throw re;
+      throw ex;
+    }
+  }
+
+  private String write(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private <T> T read(IdempotencyKey stored, Class<T> type) {
+    try {
+      return objectMapper.readValue(stored.getReponse(), type);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package ma.eventma.service;
+
+/**
+ * Published when an offer or its seat count changes; {@code eventId} is null when the writer only
+ * knows the offer (seat movements), {@code offerId} when the event's offer summary was recomputed.
+ * Cached offer lists are evicted after commit.
+ */
+public record OfferChanged(Long offerId, Long eventId) {}
@@ -0,0 +1,188 @@
+package ma.eventma.service;
+
+import ma.eventma.dto.AdminDtos;
+import ma.eventma.model.ReservationStatus;
+import ma.eventma.repository.OfferRepository;
+import ma.eventma.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks {@code places_disponibles = places_initiales - seats of CONFIRMEE/EN_ATTENTE reservations}
+ * for every offer. Offers are walked by keyset pages of {@code chunk-size}; each page is read with
+ * the matching per-offer reservation sums in one repeatable-read snapshot, so memory stays bounded
+ * whatever the table sizes. Repairs are compare-and-set on the value that was read, so a seat moved
+ * by a live reservation in the meantime is never overwritten.
+ */
+@Service
+public class OfferReconciliationService {
+
+  private static final Logger log = LoggerFactory.getLogger(OfferReconciliationService.class);
+  private static final List<ReservationStatus> HOLDING_SEATS = List.of(ReservationStatus.CONFIRMEE, ReservationStatus.EN_ATTENTE);
+  private static final int MAX_SAMPLES = 100;
+
+  private final OfferRepository offerRepository;
+  private final ReservationRepository reservationRepository;
+  private final ApplicationEventPublisher events;
+  private final TaskExecutor executor;
+  private final TransactionTemplate snapshotTx;
+  private final TransactionTemplate writeTx;
+  private final int chunkSize;
+  private final boolean autoRepair;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+  private volatile Progress progress;
+
+  public OfferReconciliationService(OfferRepository offerRepository, ReservationRepository reservationRepository,
+                                    ApplicationEventPublisher events, @Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.reconciliation.chunk-size:1000}") int chunkSize,
+                                    @Value("${app.reconciliation.auto-repair:false}") boolean autoRepair) {
+    this.offerRepository = offerRepository;
+    this.reservationRepository = reservationRepository;
+    this.events = events;
+    this.executor = executor;
+    this.snapshotTx = new TransactionTemplate(transactionManager);
+    this.snapshotTx.setReadOnly(true);
+    this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.writeTx = new TransactionTemplate(transactionManager);
+    this.chunkSize = chunkSize;
+    this.autoRepair = autoRepair;
+  }
+
+  /** Starts a run in the background; refused if one is already in progress. */
+  public AdminDtos.ReconciliationReport start(boolean repair) {
+    if (!running.compareAndSet(false, true)) throw new IllegalArgumentException("Réconciliation déjà en cours");
+    progress = new Progress(repair);
+    executor.execute(() -> run(progress));
+    return report();
+  }
+
+  public AdminDtos.ReconciliationReport report() {
+    Progress p = progress;
+    if (p == null) return new AdminDtos.ReconciliationReport("JAMAIS_EXECUTEE", false, null, null, 0, 0, 0, 0, List.of());
+    return p.toReport();
+  }
+
+  @Scheduled(cron = "${app.reconciliation.cron:-}")
+  public void scheduledRun() {
+    if (!running.compareAndSet(false, true)) return;
+    Progress p = new Progress(autoRepair);
+    progress = p;
+    // a full table walk: off the scheduler threads
+    executor.execute(() -> run(p));
+  }
+
+  private void run(Progress p) {
+    try {
+      long after = 0;
+      while (true) {
+        long from = after;
+        List<AdminDtos.OfferDrift> drifts = new ArrayList<>();
+        Long last = snapshotTx.execute(status -> scanChunk(from, p, drifts));
+        if (last == null) break;
+        if (p.repair && !drifts.isEmpty()) repair(drifts, p);
+        drifts.forEach(p::sample);
+        after = last;
+      }
+      p.finish("TERMINEE");
+    } catch (RuntimeException ex) {
+      log.error("Réconciliation interrompue", ex);
+      p.finish("ECHEC");
+    } finally {
+      running.set(false);
+    }
+    if (p.ecarts > 0) log.warn("Réconciliation: {} offre(s) en écart, {} corrigée(s)", p.ecarts, p.corrections);
+  }
+
+  /** Returns the last offer id of the page, or null when there is nothing left. */
+  private Long scanChunk(long afterId, Progress p, List<AdminDtos.OfferDrift> drifts) {
+    var offers = offerRepository.findSeatsAfter(afterId, PageRequest.ofSize(chunkSize));
+    if (offers.isEmpty()) return null;
+    Long first = offers.get(0).getId();
+    Long last = offers.get(offers.size() - 1).getId();
+
+    Map<Long, Long> taken = new HashMap<>();
+    for (var row : reservationRepository.sumPlacesByOffer(first, last, HOLDING_SEATS)) {
+      taken.put(row.getOfferId(), row.getPlaces());
+    }
+    for (var o : offers) {
+      int expected = (int) (o.getPlacesInitiales() - taken.getOrDefault(o.getId(), 0L));
+      if (o.getPlacesDisponibles() != expected) {
+        drifts.add(new AdminDtos.OfferDrift(o.getId(), o.getPlacesInitiales(), o.getPlacesDisponibles(), expected, false));
+      }
+    }
+    p.offresAnalysees += offers.size();
+    p.ecarts += drifts.size();
+    return last;
+  }
+
+  private void repair(List<AdminDtos.OfferDrift> drifts, Progress p) {
+    writeTx.executeWithoutResult(status -> {
+      for (int i = 0; i < drifts.size(); i++) {
+        var d = drifts.get(i);
+        // a negative expectation means oversold: it cannot be fixed by moving the counter
+        if (d.placesAttendues() < 0) continue;
+        if (offerRepository.repairSeats(d.offerId(), d.placesDisponibles(), d.placesAttendues()) == 1) {
+          events.publishEvent(new OfferChanged(d.offerId(), null));
+          drifts.set(i, new AdminDtos.OfferDrift(d.offerId(), d.placesInitiales(), d.placesDisponibles(), d.placesAttendues(), true));
+          p.corrections++;
+        }
+      }
+    });
+  }
+
+  private static final class Progress {
+    final boolean repair;
+    final LocalDateTime debut = LocalDateTime.now();
+    final long startNanos = System.nanoTime();
+    final List<AdminDtos.OfferDrift> samples = Collections.synchronizedList(new ArrayList<>());
+    volatile String statut = "EN_COURS";
+    volatile LocalDateTime fin;
+    volatile long dureeMs;
+    volatile long offresAnalysees;
+    volatile long ecarts;
+    volatile long corrections;
+
+    Progress(boolean repair) {
+      this.repair = repair;
+    }
+
+    void sample(AdminDtos.OfferDrift d) {
+      if (samples.size() < MAX_SAMPLES) samples.add(d);
+    }
+
+    void finish(String s) {
+      dureeMs = (System.nanoTime() - startNanos) / 1_000_000;
+      fin = LocalDateTime.now();
+      statut = s;
+    }
+
+    AdminDtos.ReconciliationReport toReport() {
+      long duree = fin == null ? (System.nanoTime() - startNanos) / 1_000_000 : dureeMs;
+      List<AdminDtos.OfferDrift> copy;
+      synchronized (samples) {
+        copy = List.copyOf(samples);
+      }
+      return new AdminDtos.ReconciliationReport(statut, repair, debut, fin, duree, offresAnalysees, ecarts, corrections, copy);
+    }
+  }
+}
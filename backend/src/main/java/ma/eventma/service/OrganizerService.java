@@ -5,46 +5,57 @@ import ma.eventma.dto.OfferDtos;
 import ma.eventma.dto.StatsDtos;
 import ma.eventma.model.*;
 import ma.eventma.repository.*;
+import ma.eventma.search.EventChanged;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
 
 @Service
 public class OrganizerService {
 
+  /** Window of the visitor figures in the overview, today included. */
+  private static final int VISITOR_DAYS = 30;
+  private static final int MAX_VISITOR_DAYS = 366;
+
   private final EventRepository eventRepository;
   private final OfferRepository offerRepository;
-  private final CategoryRepository categoryRepository;
-  private final RegionRepository regionRepository;
+  private final ReferenceDataCache referenceData;
 
   private final ReservationRepository reservationRepository;
+  private final SeatInventory seatInventory;
+  private final WaitingRoomService waitingRoom;
+  private final StatService statService;
+  private final ApplicationEventPublisher events;
 
   public OrganizerService(EventRepository eventRepository, OfferRepository offerRepository,
-                          CategoryRepository categoryRepository, RegionRepository regionRepository,
-                          ReservationRepository reservationRepository) {
+                          ReferenceDataCache referenceData,
+                          ReservationRepository reservationRepository, SeatInventory seatInventory,
+                          WaitingRoomService waitingRoom, StatService statService, ApplicationEventPublisher events) {
     this.eventRepository = eventRepository;
     this.offerRepository = offerRepository;
-    this.categoryRepository = categoryRepository;
-    this.regionRepository = regionRepository;
+    this.referenceData = referenceData;
     this.reservationRepository = reservationRepository;
+    this.seatInventory = seatInventory;
+    this.waitingRoom = waitingRoom;
+    this.statService = statService;
+    this.events = events;
   }
 
   public List<EventDtos.EventSummary> myEvents(User organizer) {
-    return eventRepository.findAll().stream()
-        .filter(e -> e.getOrganisateur().getId().equals(organizer.getId()))
-        .sorted(Comparator.comparing(Event::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-        .map(EventService::toSummary)
-        .toList();
+    Specification<Event> mine = (root, query, cb) -> cb.equal(root.get("organisateur").get("id"), organizer.getId());
+    return eventRepository.findSummaries(mine, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")), 0);
   }
 
   @Transactional
   public EventDtos.EventDetail createEvent(User organizer, EventDtos.CreateEventRequest req) {
-    Category cat = categoryRepository.findById(req.categorieId()).orElseThrow(() -> new IllegalArgumentException("Catégorie introuvable"));
-    Region reg = regionRepository.findById(req.regionId()).orElseThrow(() -> new IllegalArgumentException("Région introuvable"));
+    Category cat = referenceData.category(req.categorieId());
+    Region reg = referenceData.region(req.regionId());
 
     Event e = Event.builder()
         .titre(req.titre())
@@ -62,6 +73,7 @@ public class OrganizerService {
         .nbVues(0)
         .build();
     e = eventRepository.save(e);
+    events.publishEvent(EventChanged.of(e, null, null));
     return EventService.toDetail(e);
   }
 
@@ -69,6 +81,8 @@ public class OrganizerService {
   public EventDtos.EventDetail updateEvent(User organizer, Long id, EventDtos.UpdateEventRequest req) {
     Event e = eventRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
     if (!e.getOrganisateur().getId().equals(organizer.getId())) throw new IllegalArgumentException("Accès interdit");
+    Long previousRegionId = e.getRegion().getId();
+    Long previousCategoryId = e.getCategorie().getId();
     if (req.titre() != null) e.setTitre(req.titre());
     if (req.description() != null) e.setDescription(req.description());
     if (req.dateEvent() != null) e.setDateEvent(req.dateEvent());
@@ -76,10 +90,11 @@ public class OrganizerService {
     if (req.lieu() != null) e.setLieu(req.lieu());
     if (req.imageUrl() != null) e.setImageUrl(req.imageUrl());
     if (req.statut() != null) e.setStatut(EventStatus.valueOf(req.statut()));
-    if (req.categorieId() != null) e.setCategorie(categoryRepository.findById(req.categorieId()).orElseThrow(() -> new IllegalArgumentException("Catégorie introuvable")));
-    if (req.regionId() != null) e.setRegion(regionRepository.findById(req.regionId()).orElseThrow(() -> new IllegalArgumentException("Région introuvable")));
+    if (req.categorieId() != null) e.setCategorie(referenceData.category(req.categorieId()));
+    if (req.regionId() != null) e.setRegion(referenceData.region(req.regionId()));
     e.setUpdatedAt(java.time.LocalDateTime.now());
     e = eventRepository.save(e);
+    events.publishEvent(EventChanged.of(e, previousRegionId, previousCategoryId));
     return EventService.toDetail(e);
   }
 
@@ -88,6 +103,7 @@ public class OrganizerService {
     Event e = eventRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
     if (!e.getOrganisateur().getId().equals(organizer.getId())) throw new IllegalArgumentException("Accès interdit");
     eventRepository.delete(e);
+    events.publishEvent(EventChanged.of(e, null, null));
   }
 
   @Transactional
@@ -97,15 +113,12 @@ public class OrganizerService {
     e.setStatut(EventStatus.PUBLIE);
     e.setUpdatedAt(java.time.LocalDateTime.now());
     e = eventRepository.save(e);
+    events.publishEvent(EventChanged.of(e, null, null));
     return EventService.toDetail(e);
   }
 
   public List<OfferDtos.OfferSummary> myOffers(User organizer, Long eventId) {
-    return offerRepository.findAll().stream()
-        .filter(o -> o.getEvent().getOrganisateur().getId().equals(organizer.getId()))
-        .filter(o -> eventId == null || o.getEvent().getId().equals(eventId))
-        .map(OrganizerService::toOfferSummary)
-        .toList();
+    return offerRepository.findOrganizerSummaries(organizer.getId(), eventId);
   }
 
   @Transactional
@@ -120,8 +133,11 @@ public class OrganizerService {
         .placesInitiales(req.placesInitiales())
         .placesDisponibles(req.placesInitiales())
         .dateExpiration(req.dateExpiration())
+        .fileAttente(Boolean.TRUE.equals(req.fileAttente()))
         .build();
     o = offerRepository.save(o);
+    waitingRoom.setQueueMode(o.getId(), o.getFileAttente());
+    events.publishEvent(new OfferChanged(o.getId(), e.getId()));
     return toOfferSummary(o);
   }
 
@@ -133,16 +149,15 @@ public class OrganizerService {
     if (req.typeBillet() != null) o.setTypeBillet(req.typeBillet());
     if (req.prix() != null) o.setPrix(req.prix());
     if (req.dateExpiration() != null) o.setDateExpiration(req.dateExpiration());
-    // For simplicity, do not allow decreasing below sold
-    if (req.placesInitiales() != null) {
-      int sold = o.getPlacesInitiales() - o.getPlacesDisponibles();
-      if (req.placesInitiales() < sold) throw new IllegalArgumentException("Places initiales < vendues");
-      int newDisponibles = req.placesInitiales() - sold;
-      o.setPlacesInitiales(req.placesInitiales());
-      o.setPlacesDisponibles(newDisponibles);
-    }
-
+    if (req.fileAttente() != null) o.setFileAttente(req.fileAttente());
     o = offerRepository.save(o);
+    waitingRoom.setQueueMode(id, Boolean.TRUE.equals(o.getFileAttente()));
+    // Do not allow decreasing below sold; checked and applied atomically against concurrent reservations
+    if (req.placesInitiales() != null && !req.placesInitiales().equals(o.getPlacesInitiales())) {
+      seatInventory.resize(id, req.placesInitiales());
+      o = offerRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Offre introuvable"));
+    }
+    events.publishEvent(new OfferChanged(id, o.getEvent().getId()));
     return toOfferSummary(o);
   }
 
@@ -151,34 +166,44 @@ public class OrganizerService {
     Offer o = offerRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Offre introuvable"));
     if (!o.getEvent().getOrganisateur().getId().equals(organizer.getId())) throw new IllegalArgumentException("Accès interdit");
     offerRepository.delete(o);
+    waitingRoom.setQueueMode(id, false);
+    events.publishEvent(new OfferChanged(id, o.getEvent().getId()));
   }
 
+  /**
+   * Five aggregate queries, whatever the number of events and reservations. Unique visitors and their
+   * conversion rate cover the last {@value #VISITOR_DAYS} days.
+   */
   public StatsDtos.Overview overview(User organizer) {
-    var events = eventRepository.findAll().stream().filter(e -> e.getOrganisateur().getId().equals(organizer.getId())).toList();
-    long totalVues = events.stream().map(e -> e.getNbVues() == null ? 0 : e.getNbVues()).mapToLong(Integer::longValue).sum();
-    long evenementsActifs = events.stream().filter(e -> e.getStatut() == EventStatus.PUBLIE).count();
+    var events = eventRepository.organizerTotals(organizer.getId());
+    var sales = reservationRepository.organizerSales(organizer.getId());
+    long totalVues = events.getVues();
+    long totalReservations = sales.getReservations();
 
-        var myReservationList = reservationRepository.findAll().stream()
-        .filter(r -> r.getOffer().getEvent().getOrganisateur().getId().equals(organizer.getId()))
-        .filter(r -> r.getStatut() == ReservationStatus.CONFIRMEE)
-        .toList();
+    double conversion = totalVues == 0 ? 0.0 : (double) totalReservations / (double) totalVues;
 
-    long totalReservations = myReservationList.size();
-    BigDecimal ca = myReservationList.stream().map(Reservation::getMontantTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    List<StatsDtos.EventViews> vuesPar = eventRepository.mostViewed(organizer.getId(), Limit.of(8));
 
-    double conversion = totalVues == 0 ? 0.0 : (double) totalReservations / (double) totalVues;
+    LocalDate today = LocalDate.now();
+    var visitors = statService.organizerVisitors(organizer.getId(), today.minusDays(VISITOR_DAYS - 1), today);
 
-    List<StatsDtos.EventViews> vuesPar = events.stream()
-        .sorted(Comparator.comparing(Event::getNbVues, Comparator.nullsLast(Comparator.reverseOrder())))
-        .limit(8)
-        .map(e -> new StatsDtos.EventViews(e.getId(), e.getTitre(), (long) (e.getNbVues() == null ? 0 : e.getNbVues())))
-        .toList();
+    return new StatsDtos.Overview(totalVues, totalReservations, sales.getChiffreAffaires(), events.getActifs(), conversion, vuesPar,
+        visitors.visiteursUniques(), visitors.tauxConversion());
+  }
 
-    return new StatsDtos.Overview(totalVues, totalReservations, ca, evenementsActifs, conversion, vuesPar);
+  /** Defaults to the last {@value #VISITOR_DAYS} days; at most {@value #MAX_VISITOR_DAYS}. */
+  public StatsDtos.Visitors visitors(User organizer, Long eventId, LocalDate from, LocalDate to) {
+    Event e = eventRepository.findById(eventId).orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
+    if (!e.getOrganisateur().getId().equals(organizer.getId())) throw new IllegalArgumentException("Accès interdit");
+    LocalDate end = to != null ? to : LocalDate.now();
+    LocalDate start = from != null ? from : end.minusDays(VISITOR_DAYS - 1);
+    if (start.isAfter(end)) throw new IllegalArgumentException("Période invalide");
+    if (start.plusDays(MAX_VISITOR_DAYS).isBefore(end.plusDays(1))) throw new IllegalArgumentException("Période trop longue");
+    return statService.eventVisitors(eventId, start, end);
   }
 
   private static OfferDtos.OfferSummary toOfferSummary(Offer o) {
     int sold = o.getPlacesInitiales() - o.getPlacesDisponibles();
-    return new OfferDtos.OfferSummary(o.getId(), o.getTypeBillet(), o.getPrix(), o.getPlacesInitiales(), o.getPlacesDisponibles(), sold, o.getDateExpiration(), o.getEvent().getId(), o.getEvent().getTitre());
+    return new OfferDtos.OfferSummary(o.getId(), o.getTypeBillet(), o.getPrix(), o.getPlacesInitiales(), o.getPlacesDisponibles(), sold, o.getDateExpiration(), o.getEvent().getId(), o.getEvent().getTitre(), Boolean.TRUE.equals(o.getFileAttente()));
   }
 }
@@ -0,0 +1,93 @@
+package ma.eventma.service;
+
+import ma.eventma.model.OutboxEvent;
+import ma.eventma.repository.OutboxEventRepository;
+import ma.eventma.search.TrendingIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains outbox_events into statistiques. Each batch is coalesced per (event, day), so a burst of
+ * reservations on one event becomes a single read-modify-write of its daily row, and the outbox
+ * rows are deleted in the same transaction (applied exactly once, even after a crash).
+ */
+@Service
+public class OutboxDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+  private final OutboxEventRepository outboxRepository;
+  private final StatService statService;
+  private final TrendingIndex trending;
+  private final TransactionTemplate tx;
+
+  public OutboxDispatcher(OutboxEventRepository outboxRepository, StatService statService, TrendingIndex trending,
+                          PlatformTransactionManager transactionManager) {
+    this.outboxRepository = outboxRepository;
+    this.statService = statService;
+    this.trending = trending;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.poll-ms:1000}")
+  public void dispatch() {
+    try {
+      Integer n;
+      do {
+        n = tx.execute(status -> dispatchBatch());
+      } while (n != null && n > 0);
+    } catch (RuntimeException ex) {
+      log.warn("Outbox: lot non appliqué, nouvel essai au prochain passage", ex);
+    }
+  }
+
+  /** Applies and deletes one batch; returns the number of outbox rows processed. */
+  int dispatchBatch() {
+    List<OutboxEvent> batch = outboxRepository.findTop500ByOrderByIdAsc();
+    if (batch.isEmpty()) return 0;
+
+    Map<Key, Delta> deltas = new LinkedHashMap<>();
+    for (OutboxEvent e : batch) {
+      Delta d = deltas.computeIfAbsent(new Key(e.getEventId(), e.getDateStat()), k -> new Delta());
+      switch (e.getType()) {
+        case RESERVATION_CONFIRMEE -> {
+          d.reservations += e.getNb();
+          d.chiffreAffaires = d.chiffreAffaires.add(e.getMontant());
+        }
+        case RESERVATION_ANNULEE -> {
+          d.reservations -= e.getNb();
+          d.chiffreAffaires = d.chiffreAffaires.subtract(e.getMontant());
+        }
+      }
+    }
+    deltas.forEach((k, d) -> statService.apply(k.eventId(), k.day(), 0, d.reservations, d.chiffreAffaires));
+    outboxRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+    // views reach the trending ranking directly (EventService.recordView), reservations once applied here
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        deltas.forEach((k, d) -> trending.recordReservations(k.eventId(), d.reservations));
+      }
+    });
+    return batch.size();
+  }
+
+  private record Key(Long eventId, LocalDate day) {}
+
+  private static final class Delta {
+    long reservations;
+    BigDecimal chiffreAffaires = BigDecimal.ZERO;
+  }
+}
@@ -0,0 +1,44 @@
+package ma.eventma.service;
+
+import ma.eventma.model.OutboxEvent;
+import ma.eventma.model.OutboxEventType;
+import ma.eventma.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Every method must run inside the transaction of the change, so both commit or neither does. */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+  private final OutboxEventRepository repo;
+
+  public OutboxService(OutboxEventRepository repo) {
+    this.repo = repo;
+  }
+
+  public void publish(OutboxEventType type, Long eventId, int nb, BigDecimal montant) {
+    LocalDateTime now = LocalDateTime.now();
+    repo.save(OutboxEvent.builder()
+        .type(type)
+        .eventId(eventId)
+        .nb(nb)
+        .montant(montant == null ? BigDecimal.ZERO : montant)
+        .dateStat(now.toLocalDate())
+        .createdAt(now)
+        .build());
+  }
+
+  public void reservationsConfirmed(Long eventId, int nb, BigDecimal montant) {
+    publish(OutboxEventType.RESERVATION_CONFIRMEE, eventId, nb, montant);
+  }
+
+  public void reservationCancelled(Long eventId, BigDecimal montant) {
+    publish(OutboxEventType.RESERVATION_ANNULEE, eventId, 1, montant);
+  }
+}
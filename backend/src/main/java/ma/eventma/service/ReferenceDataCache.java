@@ -0,0 +1,99 @@
+package ma.eventma.service;
+
+import ma.eventma.model.Category;
+import ma.eventma.model.Region;
+import ma.eventma.repository.CategoryRepository;
+import ma.eventma.repository.RegionRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process copy of categories and regions. Each table is held as an immutable snapshot swapped
+ * atomically after an admin write on this node, and re-read every {@code refresh-ms} to pick up
+ * writes made on other nodes. A snapshot only gets a new version when its content changed.
+ * The cached entities are detached copies: read them, never modify them.
+ */
+@Service
+public class ReferenceDataCache {
+
+  private final CategoryRepository categoryRepository;
+  private final RegionRepository regionRepository;
+
+  private final AtomicReference<Snapshot<Category>> categories = new AtomicReference<>();
+  private final AtomicReference<Snapshot<Region>> regions = new AtomicReference<>();
+
+  public ReferenceDataCache(CategoryRepository categoryRepository, RegionRepository regionRepository) {
+    this.categoryRepository = categoryRepository;
+    this.regionRepository = regionRepository;
+  }
+
+  public record Snapshot<T>(long version, String etag, List<T> items, Map<Long, T> byId) {
+  }
+
+  public Snapshot<Category> categories() {
+    Snapshot<Category> s = categories.get();
+    return s != null ? s : reloadCategories();
+  }
+
+  public Snapshot<Region> regions() {
+    Snapshot<Region> s = regions.get();
+    return s != null ? s : reloadRegions();
+  }
+
+  public Category category(Long id) {
+    Category c = categories().byId().get(id);
+    if (c == null) throw new IllegalArgumentException("Catégorie introuvable");
+    return c;
+  }
+
+  public Region region(Long id) {
+    Region r = regions().byId().get(id);
+    if (r == null) throw new IllegalArgumentException("Région introuvable");
+    return r;
+  }
+
+  /** Re-reads the table; serialized so a slow refresh cannot swap in data older than an admin write. */
+  public synchronized Snapshot<Category> reloadCategories() {
+    return reload(categories, "c", () -> categoryRepository.findAll(Sort.by("id")).stream()
+            .map(c -> new Category(c.getId(), c.getNom(), c.getDescription())).toList(),
+        Category::getId, c -> Objects.hash(c.getId(), c.getNom(), c.getDescription()));
+  }
+
+  public synchronized Snapshot<Region> reloadRegions() {
+    return reload(regions, "r", () -> regionRepository.findAll(Sort.by("id")).stream()
+            .map(r -> new Region(r.getId(), r.getNom(), r.getCode())).toList(),
+        Region::getId, r -> Objects.hash(r.getId(), r.getNom(), r.getCode()));
+  }
+
+  @Scheduled(fixedDelayString = "${app.reference-data.refresh-ms:60000}", initialDelayString = "${app.reference-data.refresh-ms:60000}")
+  public void refresh() {
+    reloadCategories();
+    reloadRegions();
+  }
+
+  private static <T> Snapshot<T> reload(AtomicReference<Snapshot<T>> ref, String prefix, Supplier<List<T>> loader,
+                                        Function<T, Long> id, Function<T, Integer> hash) {
+    List<T> items = loader.get();
+    Map<Long, T> byId = new HashMap<>();
+    int contentHash = 1;
+    for (T item : items) {
+      byId.put(id.apply(item), item);
+      contentHash = 31 * contentHash + hash.apply(item);
+    }
+    String etag = "\"" + prefix + Integer.toHexString(contentHash) + "-" + items.size() + "\"";
+    Snapshot<T> current = ref.get();
+    if (current != null && current.etag().equals(etag)) return current;
+    Snapshot<T> next = new Snapshot<>(current == null ? 1 : current.version() + 1, etag, items, Map.copyOf(byId));
+    ref.set(next);
+    return next;
+  }
+}
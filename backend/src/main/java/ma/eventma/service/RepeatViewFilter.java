@@ -0,0 +1,135 @@
+package ma.eventma.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Drops repeat view pings of a visitor on an event within {@code dedupe-window-seconds}, in bounded
+ * memory: two Bloom filters sized for {@code dedupe-expected-visitors} at {@code dedupe-false-positive-rate},
+ * the older one dropped each window (so a repeat is remembered between one and two windows). A flood
+ * fills the current filter early and rotates it, which keeps the false-positive rate near its target.
+ * A false positive loses one view, never counts an extra one.
+ * <p>
+ * Metrics: {@code views.dedupe.dropped} and {@code views.dedupe.false.positive.rate} (estimated from
+ * the filters' fill).
+ */
+@Service
+public class RepeatViewFilter {
+
+  private record Generations(BloomFilter current, BloomFilter previous, long startedAt) {}
+
+  private final long windowMs;
+  private final long expected;
+  private final long bits;
+  private final int hashes;
+  private final Counter dropped;
+  private volatile Generations generations;
+
+  public RepeatViewFilter(MeterRegistry registry,
+                          @Value("${app.views.dedupe-window-seconds:1800}") long windowSeconds,
+                          @Value("${app.views.dedupe-expected-visitors:1000000}") long expected,
+                          @Value("${app.views.dedupe-false-positive-rate:0.01}") double falsePositiveRate) {
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException("Taux de faux positifs invalide");
+    this.windowMs = windowSeconds * 1000;
+    this.expected = Math.max(1, expected);
+    // optimal sizing: m = -n ln p / (ln 2)^2 bits, k = m/n ln 2 hash functions
+    this.bits = Math.max(64, (long) Math.ceil(-this.expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+    this.hashes = Math.max(1, (int) Math.round((double) bits / this.expected * Math.log(2)));
+    this.generations = new Generations(new BloomFilter(bits), new BloomFilter(bits), System.currentTimeMillis());
+    this.dropped = Counter.builder("views.dedupe.dropped").register(registry);
+    Gauge.builder("views.dedupe.false.positive.rate", this, RepeatViewFilter::falsePositiveRate).register(registry);
+  }
+
+  /** True for the first ping of {@code visitor} on the event in the window; a null visitor always passes. */
+  public boolean firstView(Long eventId, String visitor) {
+    if (windowMs <= 0 || visitor == null) return true;
+    Generations g = current();
+    long h = HyperLogLog.hash(eventId + "|" + visitor);
+    if (g.previous().contains(h, hashes) || !g.current().add(h, hashes)) {
+      dropped.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /** Chance that a first ping is taken for a repeat, given how full both filters are. */
+  double falsePositiveRate() {
+    Generations g = generations;
+    double current = Math.pow(g.current().fill(), hashes);
+    double previous = Math.pow(g.previous().fill(), hashes);
+    return 1 - (1 - current) * (1 - previous);
+  }
+
+  private Generations current() {
+    Generations g = generations;
+    long now = System.currentTimeMillis();
+    if (now - g.startedAt() < windowMs && g.current().inserted() < expected) return g;
+    synchronized (this) {
+      g = generations;
+      if (now - g.startedAt() >= windowMs || g.current().inserted() >= expected) {
+        // more than two windows idle: nothing left to remember
+        BloomFilter previous = now - g.startedAt() >= 2 * windowMs ? new BloomFilter(bits) : g.current();
+        g = new Generations(new BloomFilter(bits), previous, now);
+        generations = g;
+      }
+      return g;
+    }
+  }
+
+  /** Bits set by CAS; positions from the two halves of a 64-bit hash (Kirsch-Mitzenmacher). */
+  private static final class BloomFilter {
+    final AtomicLongArray words;
+    final long size;
+    final AtomicLong set = new AtomicLong();
+    final AtomicLong inserted = new AtomicLong();
+
+    BloomFilter(long size) {
+      this.size = size;
+      this.words = new AtomicLongArray((int) ((size + 63) / 64));
+    }
+
+    boolean contains(long h, int k) {
+      int h1 = (int) h, h2 = (int) (h >>> 32);
+      for (int i = 0; i < k; i++) {
+        long bit = Math.floorMod(h1 + i * h2, size);
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+      }
+      return true;
+    }
+
+    /** Returns false when every bit was already set, i.e. probably seen before. */
+    boolean add(long h, int k) {
+      int h1 = (int) h, h2 = (int) (h >>> 32);
+      boolean changed = false;
+      for (int i = 0; i < k; i++) {
+        long bit = Math.floorMod(h1 + i * h2, size);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long cur;
+        while (((cur = words.get(word)) & mask) == 0) {
+          if (words.compareAndSet(word, cur, cur | mask)) {
+            set.incrementAndGet();
+            changed = true;
+            break;
+          }
+        }
+      }
+      if (changed) inserted.incrementAndGet();
+      return changed;
+    }
+
+    long inserted() {
+      return inserted.get();
+    }
+
+    double fill() {
+      return (double) set.get() / size;
+    }
+  }
+}
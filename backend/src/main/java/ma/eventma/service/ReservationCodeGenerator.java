@@ -0,0 +1,10 @@
+package ma.eventma.service;
+
+/** Produces the public {@code code_reservation} of new reservations. */
+public interface ReservationCodeGenerator {
+
+  String next();
+
+  /** Cheap syntactic check (format + check digit), usable without any database access. */
+  boolean isValid(String code);
+}
@@ -4,52 +4,143 @@ import ma.eventma.dto.ReservationDtos;
 import ma.eventma.model.*;
 import ma.eventma.repository.OfferRepository;
 import ma.eventma.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReservationService {
 
   private final ReservationRepository reservationRepository;
   private final OfferRepository offerRepository;
+  private final SeatInventory seatInventory;
+  private final HoldExpiryService holdExpiry;
+  private final JdbcTemplate jdbcTemplate;
+  private final ReservationCodeGenerator codeGenerator;
+  private final OutboxService outbox;
+  private final long holdMinutes;
 
-  public ReservationService(ReservationRepository reservationRepository, OfferRepository offerRepository) {
+  public ReservationService(ReservationRepository reservationRepository, OfferRepository offerRepository, SeatInventory seatInventory,
+                            HoldExpiryService holdExpiry, JdbcTemplate jdbcTemplate, ReservationCodeGenerator codeGenerator,
+                            OutboxService outbox, @Value("${app.holds.duration-minutes:10}") long holdMinutes) {
     this.reservationRepository = reservationRepository;
     this.offerRepository = offerRepository;
+    this.seatInventory = seatInventory;
+    this.holdExpiry = holdExpiry;
+    this.jdbcTemplate = jdbcTemplate;
+    this.codeGenerator = codeGenerator;
+    this.outbox = outbox;
+    this.holdMinutes = holdMinutes;
   }
 
   @Transactional
   public ReservationDtos.ReservationSummary create(User client, ReservationDtos.CreateReservationRequest req) {
-    Offer offer = offerRepository.findById(req.offerId()).orElseThrow(() -> new IllegalArgumentException("Offre introuvable"));
-    if (offer.getPlacesDisponibles() < req.nbPlaces()) {
-      throw new IllegalArgumentException("Places insuffisantes");
+    Reservation r = reserve(client, req, ReservationStatus.CONFIRMEE, null);
+    outbox.reservationsConfirmed(r.getOffer().getEvent().getId(), 1, r.getMontantTotal());
+    return toSummary(r);
+  }
+
+  /** Takes the seats for a limited time; the reservation stays EN_ATTENTE until {@link #confirm}. */
+  @Transactional
+  public ReservationDtos.ReservationSummary hold(User client, ReservationDtos.CreateReservationRequest req) {
+    rejectQueued(List.of(req.offerId()));
+    Reservation r = reserve(client, req, ReservationStatus.EN_ATTENTE, LocalDateTime.now().plusMinutes(holdMinutes));
+    holdExpiry.schedule(r.getId(), r.getExpireLe());
+    return toSummary(r);
+  }
+
+  @Transactional
+  public ReservationDtos.ReservationSummary confirm(User client, Long reservationId) {
+    Reservation r = reservationRepository.findById(reservationId).orElseThrow(() -> new IllegalArgumentException("Reservation introuvable"));
+    if (!r.getUser().getId().equals(client.getId())) {
+      throw new IllegalArgumentException("Accès interdit");
     }
+    if (r.getStatut() != ReservationStatus.EN_ATTENTE) {
+      throw new IllegalArgumentException("Réservation non en attente");
+    }
+    if (reservationRepository.confirmHold(reservationId, LocalDateTime.now()) == 0) {
+      throw new IllegalArgumentException("Réservation expirée");
+    }
+    r = reservationRepository.findById(reservationId).orElseThrow();
+    outbox.reservationsConfirmed(r.getOffer().getEvent().getId(), 1, r.getMontantTotal());
+    return toSummary(r);
+  }
+
+  /**
+   * Reserves every line or none. Seats are taken in ascending offer id order so that two baskets
+   * sharing offers always lock rows in the same order (no deadlock); rows are inserted in one batch.
+   */
+  @Transactional
+  public ReservationDtos.BasketSummary createBasket(User client, ReservationDtos.CreateBasketRequest req) {
+    Map<Long, Integer> lines = new TreeMap<>();
+    for (var l : req.lignes()) lines.merge(l.offerId(), l.nbPlaces(), Integer::sum);
+    rejectQueued(lines.keySet());
+
+    lines.forEach(seatInventory::take);
+    Map<Long, Offer> offers = offerRepository.findAllById(lines.keySet()).stream()
+        .collect(Collectors.toMap(Offer::getId, Function.identity()));
+
+    LocalDateTime now = LocalDateTime.now();
+    List<String> codes = new ArrayList<>();
+    List<Object[]> rows = new ArrayList<>();
+    lines.forEach((offerId, nb) -> {
+      Offer offer = offers.get(offerId);
+      String code = codeGenerator.next();
+      codes.add(code);
+      rows.add(new Object[]{code, Timestamp.valueOf(now), nb, offer.getPrix().multiply(BigDecimal.valueOf(nb)),
+          ReservationStatus.CONFIRMEE.name(), client.getId(), offerId});
+    });
+    jdbcTemplate.batchUpdate(
+        "insert into reservations (code_reservation, date_reservation, nb_places, montant_total, statut, user_id, offer_id) values (?, ?, ?, ?, ?, ?, ?)",
+        rows);
+
+    List<ReservationDtos.ReservationSummary> res = reservationRepository.findByCodeReservationIn(codes).stream()
+        .sorted(Comparator.comparing(r -> r.getOffer().getId()))
+        .map(ReservationService::toSummary)
+        .toList();
+    // statistics: one outbox event per event, not per line
+    res.stream()
+        .collect(Collectors.groupingBy(ReservationDtos.ReservationSummary::eventId))
+        .forEach((eventId, l) -> outbox.reservationsConfirmed(eventId, l.size(),
+            l.stream().map(ReservationDtos.ReservationSummary::montantTotal).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    BigDecimal total = res.stream().map(ReservationDtos.ReservationSummary::montantTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    return new ReservationDtos.BasketSummary(res, total);
+  }
 
-    offer.setPlacesDisponibles(offer.getPlacesDisponibles() - req.nbPlaces());
-    offerRepository.save(offer);
+  private Reservation reserve(User client, ReservationDtos.CreateReservationRequest req, ReservationStatus statut, LocalDateTime expireLe) {
+    seatInventory.take(req.offerId(), req.nbPlaces());
+    Offer offer = offerRepository.findById(req.offerId()).orElseThrow(() -> new IllegalArgumentException("Offre introuvable"));
 
     BigDecimal amount = offer.getPrix().multiply(BigDecimal.valueOf(req.nbPlaces()));
 
     Reservation r = Reservation.builder()
-        .codeReservation("RES-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase())
+        .codeReservation(codeGenerator.next())
         .dateReservation(LocalDateTime.now())
         .nbPlaces(req.nbPlaces())
         .montantTotal(amount)
-        .statut(ReservationStatus.CONFIRMEE)
+        .statut(statut)
+        .expireLe(expireLe)
         .user(client)
         .offer(offer)
         .build();
-    r = reservationRepository.save(r);
-    return toSummary(r);
+    return reservationRepository.save(r);
   }
 
   public List<ReservationDtos.ReservationSummary> myReservations(User client) {
-    return reservationRepository.findByUserIdOrderByDateReservationDesc(client.getId()).stream().map(ReservationService::toSummary).toList();
+    return reservationRepository.findSummariesByUserId(client.getId());
   }
 
   @Transactional
@@ -69,22 +160,31 @@ public class ReservationService {
       throw new IllegalArgumentException("Annulation impossible: moins de 24h avant l'événement");
     }
 
-    // restore seats
-    Offer offer = r.getOffer();
-    offer.setPlacesDisponibles(offer.getPlacesDisponibles() + r.getNbPlaces());
-    offerRepository.save(offer);
-
-    r.setStatut(ReservationStatus.ANNULEE);
-    r = reservationRepository.save(r);
+    // restore seats, only once even if the same reservation is cancelled concurrently
+    if (reservationRepository.transition(r.getId(), r.getStatut(), ReservationStatus.ANNULEE) == 1) {
+      seatInventory.release(r.getOffer().getId(), r.getNbPlaces());
+      if (r.getStatut() == ReservationStatus.CONFIRMEE) outbox.reservationCancelled(ev.getId(), r.getMontantTotal());
+    }
+    r = reservationRepository.findById(reservationId).orElseThrow();
     return toSummary(r);
   }
 
+  /**
+   * Offers in queue mode are only sold through {@link WaitingRoomService}. Read from the offers, not the
+   * waiting room's in-memory set, so it holds on every node.
+   */
+  private void rejectQueued(Collection<Long> offerIds) {
+    if (offerRepository.existsByIdInAndFileAttenteTrue(offerIds)) {
+      throw new IllegalArgumentException("Offre en file d'attente : passez par la réservation simple");
+    }
+  }
+
   public static ReservationDtos.ReservationSummary toSummary(Reservation r) {
     Offer o = r.getOffer();
     Event e = o.getEvent();
     return new ReservationDtos.ReservationSummary(
         r.getId(), r.getCodeReservation(), r.getDateReservation(), r.getNbPlaces(), r.getMontantTotal(), r.getStatut().name(),
-        e.getId(), e.getTitre(), o.getId(), o.getTypeBillet(), o.getPrix()
+        e.getId(), e.getTitre(), o.getId(), o.getTypeBillet(), o.getPrix(), r.getExpireLe()
     );
   }
 }
@@ -0,0 +1,109 @@
+package ma.eventma.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ma.eventma.dto.EventDtos;
+import ma.eventma.search.EventChanged;
+import ma.eventma.search.EventIndex;
+import ma.eventma.search.EventIndexer;
+import ma.eventma.search.EventSort;
+import ma.eventma.search.PriceFilter;
+import ma.eventma.search.TrendingIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of {@link EventService#search}, keyed by the normalized parameters, bounded by {@code max-entries}
+ * (Caffeine's W-TinyLFU admission keeps the popular queries) and kept {@code ttl-seconds}, which bounds the
+ * staleness of view counts, trending order, seats left and edits made on other nodes. An organizer edit drops
+ * only the searches whose region and category filters could match the event before or after it.
+ * Metrics: {@code cache.*{cache=events.search}}.
+ */
+@Service
+public class SearchResultCache {
+
+  private record Key(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo, PriceFilter price, String sort,
+                     long loads) {
+  }
+
+  private final EventService eventService;
+  private final EventIndex index;
+  private final TrendingIndex trending;
+  private final Cache<Key, List<EventDtos.EventSummary>> cache;
+  /** Bumped by each invalidation, so a search that overlapped an edit is not stored. */
+  private final AtomicLong edits = new AtomicLong();
+
+  public SearchResultCache(EventService eventService, EventIndex index, TrendingIndex trending, MeterRegistry registry,
+                           @Value("${app.search-cache.max-entries:10000}") long maxEntries,
+                           @Value("${app.search-cache.ttl-seconds:30}") long ttlSeconds) {
+    this.eventService = eventService;
+    this.index = index;
+    this.trending = trending;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxEntries)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, "events.search");
+    Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate()).tag("cache", "events.search").register(registry);
+  }
+
+  public List<EventDtos.EventSummary> search(String q, Long regionId, Long categoryId, LocalDate dateFrom, LocalDate dateTo,
+                                             PriceFilter price, String sort) {
+    String order = normalizeSort(sort);
+    // SQL fallbacks while the indexes load are not cached
+    if (!index.isReady() || ("trending".equals(order) && !trending.isReady())) {
+      return eventService.search(q, regionId, categoryId, dateFrom, dateTo, price, sort);
+    }
+    Key key = new Key(normalizeQuery(q), regionId, categoryId, dateFrom, dateTo, normalizePrice(price), order, index.loads());
+    List<EventDtos.EventSummary> hit = cache.getIfPresent(key);
+    if (hit != null) return hit;
+    long seen = edits.get();
+    List<EventDtos.EventSummary> result = List.copyOf(eventService.search(key.q(), regionId, categoryId, dateFrom, dateTo, price, order));
+    if (edits.get() == seen) cache.put(key, result);
+    return result;
+  }
+
+  /** After the index upsert: a search that read the old index either overlapped this (not stored) or is dropped here. */
+  @Order(EventIndexer.ORDER + 1)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void on(EventChanged change) {
+    edits.incrementAndGet();
+    if (change.regionIds().isEmpty() || change.categoryIds().isEmpty()) {
+      cache.invalidateAll();
+      return;
+    }
+    cache.asMap().keySet().removeIf(k -> (k.regionId() == null || change.regionIds().contains(k.regionId()))
+        && (k.categoryId() == null || change.categoryIds().contains(k.categoryId())));
+  }
+
+  private static String normalizeQuery(String q) {
+    if (q == null || q.isBlank()) return null;
+    return q.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  /** 100, 100.0 and 100.00 are the same bound. */
+  private static PriceFilter normalizePrice(PriceFilter p) {
+    if (p == PriceFilter.NONE) return p;
+    return new PriceFilter(p.min() == null ? null : p.min().stripTrailingZeros(), p.max() == null ? null : p.max().stripTrailingZeros(),
+        p.availableOnly());
+  }
+
+  /** Spellings that give the same order share an entry: missing means relevance, unknown means id. */
+  private static String normalizeSort(String sort) {
+    if (sort == null || sort.isBlank() || "relevance".equalsIgnoreCase(sort.trim())) return "relevance";
+    if ("trending".equalsIgnoreCase(sort.trim())) return "trending";
+    return EventSort.parse(sort.trim()).name();
+  }
+}
@@ -0,0 +1,60 @@
+package ma.eventma.service;
+
+import ma.eventma.repository.OfferRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Single entry point for every change of {@code offers.places_disponibles}.
+ * Each operation is one conditional UPDATE: the database checks and decrements in the same
+ * statement, so concurrent buyers never oversell (no read-then-write window in Java).
+ * Operations join the caller's transaction, so the offer row stays locked until that transaction
+ * commits (reservation insert, outbox insert, idempotency write included); buyers of one offer queue
+ * on that lock for the rest of the caller's transaction, not just this statement.
+ * The event's seat total follows after commit ({@link EventAvailability}).
+ */
+@Service
+public class SeatInventory {
+
+  private final OfferRepository offerRepository;
+  private final ApplicationEventPublisher events;
+
+  public SeatInventory(OfferRepository offerRepository, ApplicationEventPublisher events) {
+    this.offerRepository = offerRepository;
+    this.events = events;
+  }
+
+  /** Takes {@code n} seats or throws if the offer does not exist / has not enough seats left. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void take(Long offerId, int n) {
+    if (n <= 0) throw new IllegalArgumentException("Nombre de places invalide");
+    if (offerRepository.takeSeats(offerId, n) == 0) {
+      if (!offerRepository.existsById(offerId)) throw new IllegalArgumentException("Offre introuvable");
+      throw new IllegalArgumentException("Places insuffisantes");
+    }
+    events.publishEvent(new OfferChanged(offerId, null));
+  }
+
+  /** Returns {@code n} previously taken seats to the offer. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void release(Long offerId, int n) {
+    if (n <= 0) return;
+    if (offerRepository.releaseSeats(offerId, n) == 0) {
+      throw new IllegalStateException("Restitution impossible pour l'offre " + offerId);
+    }
+    events.publishEvent(new OfferChanged(offerId, null));
+  }
+
+  /** Changes the capacity of an offer, keeping the seats already sold. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void resize(Long offerId, int placesInitiales) {
+    if (placesInitiales < 0) throw new IllegalArgumentException("Places initiales invalides");
+    if (offerRepository.resize(offerId, placesInitiales) == 0) {
+      if (!offerRepository.existsById(offerId)) throw new IllegalArgumentException("Offre introuvable");
+      throw new IllegalArgumentException("Places initiales < vendues");
+    }
+    events.publishEvent(new OfferChanged(offerId, null));
+  }
+}
@@ -1,86 +1,70 @@
 package ma.eventma.service;
 
-import ma.eventma.model.Event;
-import ma.eventma.model.Statistique;
+import ma.eventma.dto.StatsDtos;
 import ma.eventma.repository.EventRepository;
 import ma.eventma.repository.StatistiqueRepository;
+import ma.eventma.repository.VisiteursOrganisateurRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.stream.Stream;
 
 @Service
 public class StatService {
   private final StatistiqueRepository repo;
   private final EventRepository eventRepository;
+  private final VisiteursOrganisateurRepository organizerVisitors;
 
-  public StatService(StatistiqueRepository repo, EventRepository eventRepository) {
+  public StatService(StatistiqueRepository repo, EventRepository eventRepository, VisiteursOrganisateurRepository organizerVisitors) {
     this.repo = repo;
     this.eventRepository = eventRepository;
+    this.organizerVisitors = organizerVisitors;
   }
 
-  // Methods expected by controllers (thin wrappers)
+  /**
+   * Adds coalesced deltas to the daily row of an event (called by {@link OutboxDispatcher} and
+   * {@link ViewCounter}). Counters never go below zero; a day with only cancellations does not create a row.
+   * Both statements add in the database, so concurrent dispatchers on several nodes do not lose updates.
+   */
   @Transactional
-  public void onView(Event event) {
-    recordView(event);
+  public void apply(Long eventId, LocalDate day, long vues, long reservations, BigDecimal chiffreAffaires) {
+    if (repo.addActivity(eventId, day, vues, reservations, chiffreAffaires) > 0) return;
+    if ((vues <= 0 && reservations <= 0) || !eventRepository.existsById(eventId)) return;
+    repo.upsertActivity(eventId, day, vues, reservations, chiffreAffaires);
   }
 
-  @Transactional
-  public void onReservationConfirmed(Long eventId, BigDecimal amount) {
-    Event e = eventRepository.findById(eventId)
-        .orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
-    recordReservation(e, amount);
+  /**
+   * Views, net reservations and unique visitors of an event over [from, to]; visitors are merged from
+   * the daily sketches, so someone coming back on several days counts once.
+   */
+  @Transactional(readOnly = true)
+  public StatsDtos.Visitors eventVisitors(Long eventId, LocalDate from, LocalDate to) {
+    var activity = repo.eventActivity(eventId, from, to);
+    try (Stream<byte[]> sketches = repo.streamEventVisitors(eventId, from, to)) {
+      return visitors(eventId, from, to, activity, sketches);
+    }
   }
 
-  @Transactional
-  public void onReservationCancelled(Long eventId, BigDecimal amount) {
-    Event e = eventRepository.findById(eventId)
-        .orElseThrow(() -> new IllegalArgumentException("Event introuvable"));
-    recordCancellation(e, amount);
-  }
-
-  @Transactional
-  public void recordView(Event event) {
-    LocalDate today = LocalDate.now();
-    Statistique s = repo.findByEventIdAndDateConsultation(event.getId(), today)
-        .orElseGet(() -> repo.save(Statistique.builder()
-            .event(event)
-            .dateConsultation(today)
-            .nbVues(0)
-            .nbReservations(0)
-            .chiffreAffaires(BigDecimal.ZERO)
-            .build()));
-    s.setNbVues((s.getNbVues()==null?0:s.getNbVues()) + 1);
-    repo.save(s);
+  /**
+   * Same over all the organizer's events: a visitor of several of them counts once. Reads the organizer's
+   * daily sketches, one per day whatever the number of events.
+   */
+  @Transactional(readOnly = true)
+  public StatsDtos.Visitors organizerVisitors(Long organizerId, LocalDate from, LocalDate to) {
+    var activity = repo.organizerActivity(organizerId, from, to);
+    try (Stream<byte[]> sketches = organizerVisitors.streamVisitors(organizerId, from, to)) {
+      return visitors(null, from, to, activity, sketches);
+    }
   }
 
-  @Transactional
-  public void recordReservation(Event event, BigDecimal amount) {
-    LocalDate today = LocalDate.now();
-    Statistique s = repo.findByEventIdAndDateConsultation(event.getId(), today)
-        .orElseGet(() -> repo.save(Statistique.builder()
-            .event(event)
-            .dateConsultation(today)
-            .nbVues(0)
-            .nbReservations(0)
-            .chiffreAffaires(BigDecimal.ZERO)
-            .build()));
-    s.setNbReservations((s.getNbReservations()==null?0:s.getNbReservations()) + 1);
-    s.setChiffreAffaires((s.getChiffreAffaires()==null?BigDecimal.ZERO:s.getChiffreAffaires()).add(amount));
-    repo.save(s);
-  }
-
-  @Transactional
-  public void recordCancellation(Event event, BigDecimal amount) {
-    LocalDate today = LocalDate.now();
-    Statistique s = repo.findByEventIdAndDateConsultation(event.getId(), today)
-        .orElse(null);
-    if (s == null) return;
-    s.setNbReservations(Math.max(0, (s.getNbReservations()==null?0:s.getNbReservations()) - 1));
-    BigDecimal ca = (s.getChiffreAffaires()==null?BigDecimal.ZERO:s.getChiffreAffaires()).subtract(amount);
-    if (ca.signum() < 0) ca = BigDecimal.ZERO;
-    s.setChiffreAffaires(ca);
-    repo.save(s);
+  private static StatsDtos.Visitors visitors(Long eventId, LocalDate from, LocalDate to, StatistiqueRepository.Activity activity,
+                                             Stream<byte[]> sketches) {
+    HyperLogLog merged = new HyperLogLog();
+    sketches.forEach(merged::merge);
+    long uniques = merged.estimate();
+    double conversion = uniques == 0 ? 0.0 : (double) activity.getReservations() / (double) uniques;
+    return new StatsDtos.Visitors(eventId, from, to, activity.getVues(), uniques, activity.getReservations(), conversion);
   }
 }
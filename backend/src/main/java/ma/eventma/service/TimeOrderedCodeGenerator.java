@@ -0,0 +1,129 @@
+package ma.eventma.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Default {@link ReservationCodeGenerator}: {@code RES-} + 13 Crockford base32 chars + 1 check char.
+ * The 63-bit payload is [41 bits ms since 2024-01-01 | 10 bits node | 12 bits sequence], written
+ * big-endian with a fixed width, so codes sort by creation time and land at the right end of the
+ * unique index. Uniqueness needs no lock and no randomness: one CAS on the (time, sequence) state
+ * per call, and a distinct {@code app.reservation-code.node-id} per node. Startup fails without one,
+ * except under the {@code dev} profile, where it derives from the host name (and may collide).
+ */
+@Service
+public class TimeOrderedCodeGenerator implements ReservationCodeGenerator {
+
+  static final String PREFIX = "RES-";
+  private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+  private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+  private static final int NODE_BITS = 10;
+  private static final int SEQ_BITS = 12;
+  private static final int PAYLOAD_CHARS = 13;
+
+  private static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+  private final long node;
+  private final LongSupplier clock;
+  private final AtomicLong state = new AtomicLong();
+
+  @Autowired
+  public TimeOrderedCodeGenerator(@Value("${app.reservation-code.node-id:-1}") int nodeId, Environment environment) {
+    this(resolveNode(nodeId, environment), System::currentTimeMillis);
+  }
+
+  TimeOrderedCodeGenerator(int nodeId, LongSupplier clock) {
+    this.node = nodeId;
+    this.clock = clock;
+  }
+
+  private static int resolveNode(int nodeId, Environment environment) {
+    if (nodeId > MAX_NODE) throw new IllegalStateException("app.reservation-code.node-id hors limites (0-" + MAX_NODE + ")");
+    if (nodeId >= 0) return nodeId;
+    // two nodes hashing to the same id would issue identical codes in the same millisecond
+    if (!environment.acceptsProfiles(Profiles.of("dev"))) {
+      throw new IllegalStateException("app.reservation-code.node-id (NODE_ID) doit être fixé, distinct par instance");
+    }
+    return hostNodeId() & MAX_NODE;
+  }
+
+  @Override
+  public String next() {
+    long now = (clock.getAsLong() - EPOCH) << SEQ_BITS;
+    // same millisecond (or clock going back): next sequence, overflowing into the following ms
+    long s = state.updateAndGet(prev -> Math.max(now, prev + 1));
+    long millis = s >>> SEQ_BITS;
+    long payload = (millis << (NODE_BITS + SEQ_BITS)) | (node << SEQ_BITS) | (s & ((1 << SEQ_BITS) - 1));
+
+    char[] out = new char[PREFIX.length() + PAYLOAD_CHARS + 1];
+    PREFIX.getChars(0, PREFIX.length(), out, 0);
+    for (int i = PAYLOAD_CHARS - 1; i >= 0; i--) {
+      out[PREFIX.length() + i] = ALPHABET[(int) (payload & 31)];
+      payload >>>= 5;
+    }
+    out[out.length - 1] = ALPHABET[checkValue(out, PREFIX.length(), PAYLOAD_CHARS)];
+    return new String(out);
+  }
+
+  @Override
+  public boolean isValid(String code) {
+    return check(code);
+  }
+
+  /** Static form of {@link #isValid} for offline tools (door scanning apps). */
+  public static boolean check(String code) {
+    if (code == null || code.length() != PREFIX.length() + PAYLOAD_CHARS + 1) return false;
+    // typed or scanned codes may come in lower case, like the payload (see value)
+    if (!code.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) return false;
+    char[] c = code.toCharArray();
+    for (int i = PREFIX.length(); i < c.length; i++) {
+      if (value(c[i]) < 0) return false;
+    }
+    return value(c[c.length - 1]) == checkValue(c, PREFIX.length(), PAYLOAD_CHARS);
+  }
+
+  /** The 63-bit payload of a valid code: [ms since 2024-01-01 | node | sequence]. */
+  static long payload(String code) {
+    if (!check(code)) throw new IllegalArgumentException("Code de réservation invalide");
+    long payload = 0;
+    for (int i = PREFIX.length(); i < PREFIX.length() + PAYLOAD_CHARS; i++) payload = (payload << 5) | value(code.charAt(i));
+    return payload;
+  }
+
+  /** Luhn mod 32: catches every single-char error and adjacent transposition. */
+  private static int checkValue(char[] c, int from, int len) {
+    int factor = 2;
+    int sum = 0;
+    for (int i = from + len - 1; i >= from; i--) {
+      int addend = factor * value(c[i]);
+      factor = factor == 2 ? 1 : 2;
+      sum += addend / 32 + addend % 32;
+    }
+    return (32 - sum % 32) % 32;
+  }
+
+  private static int value(char ch) {
+    char u = Character.toUpperCase(ch);
+    if (u == 'O') u = '0';
+    if (u == 'I' || u == 'L') u = '1';
+    for (int i = 0; i < ALPHABET.length; i++) {
+      if (ALPHABET[i] == u) return i;
+    }
+    return -1;
+  }
+
+  private static int hostNodeId() {
+    try {
+      return InetAddress.getLocalHost().getHostName().hashCode();
+    } catch (Exception ex) {
+      return (int) ProcessHandle.current().pid();
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package ma.eventma.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * View pings, counted in memory per (event, day) and written every {@code app.views.flush-ms} as batched
+ * increments ({@code events.nb_vues}, then the daily {@code statistiques} row). A crash loses at most that
+ * window; a shutdown drains it. A failed flush puts its counts back for the next one.
+ * <p>
+ * Visitors go into a {@link HyperLogLog} per (event, day), kept for the day and merged into
+ * {@code statistiques.visiteurs} under a row lock whenever it changed, so nodes add up; the same
+ * sketches are merged per (organizer, day) into {@code visiteurs_organisateur}.
+ */
+@Service
+public class ViewCounter {
+
+  private static final Logger log = LoggerFactory.getLogger(ViewCounter.class);
+  private static final int IN_CHUNK = 500;
+  private static final Comparator<Key> ORDER = Comparator.comparing(Key::day).thenComparing(Key::eventId);
+
+  private record Key(Long eventId, LocalDate day) {}
+
+  private static final class Counts {
+    final LongAdder views = new LongAdder();
+    final HyperLogLog visitors = new HyperLogLog();
+    /** Set after a register was raised, cleared by the flush that persists it. */
+    final AtomicBoolean dirty = new AtomicBoolean();
+  }
+
+  private final Map<Key, Counts> pending = new ConcurrentHashMap<>();
+  private final JdbcTemplate jdbc;
+  private final StatService statService;
+  private final TransactionTemplate tx;
+
+  public ViewCounter(DataSource dataSource, StatService statService, PlatformTransactionManager transactionManager) {
+    this.jdbc = new JdbcTemplate(dataSource);
+    this.statService = statService;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  /** {@code visitor} identifies who viewed (user, or visitor cookie); null counts the view only. */
+  public void record(Long eventId, String visitor) {
+    Counts c = pending.computeIfAbsent(new Key(eventId, LocalDate.now()), k -> new Counts());
+    c.views.increment();
+    if (visitor != null && c.visitors.add(visitor)) c.dirty.set(true);
+  }
+
+  @Scheduled(fixedDelayString = "${app.views.flush-ms:1000}", initialDelayString = "${app.views.flush-ms:1000}")
+  public void scheduledFlush() {
+    try {
+      flush();
+    } catch (RuntimeException ex) {
+      log.warn("Vues: écriture différée au prochain passage", ex);
+    }
+  }
+
+  @PreDestroy
+  public void drain() {
+    try {
+      flush();
+    } catch (RuntimeException ex) {
+      log.error("Vues perdues à l'arrêt", ex);
+    }
+  }
+
+  synchronized void flush() {
+    Map<Key, Long> views = new TreeMap<>(ORDER);
+    Map<Key, Counts> sketches = new TreeMap<>(ORDER);
+    LocalDate today = LocalDate.now();
+    pending.forEach((k, c) -> {
+      long n = c.views.sumThenReset();
+      if (n > 0) views.put(k, n);
+      if (c.dirty.getAndSet(false)) sketches.put(k, c);
+      // past days stop receiving pings; a ping racing the removal would be dropped, not double counted
+      else if (n == 0 && k.day().isBefore(today)) pending.remove(k, c);
+    });
+    if (views.isEmpty() && sketches.isEmpty()) return;
+    try {
+      tx.executeWithoutResult(status -> {
+        writeViews(views);
+        writeVisitors(sketches);
+      });
+    } catch (RuntimeException ex) {
+      views.forEach((k, n) -> pending.get(k).views.add(n));
+      sketches.values().forEach(c -> c.dirty.set(true));
+      throw ex;
+    }
+  }
+
+  private void writeViews(Map<Key, Long> counts) {
+    if (counts.isEmpty()) return;
+    Map<Long, Long> perEvent = new TreeMap<>();
+    counts.forEach((k, n) -> perEvent.merge(k.eventId(), n, Long::sum));
+    List<Object[]> events = new ArrayList<>(perEvent.size());
+    perEvent.forEach((id, n) -> events.add(new Object[]{n, id}));
+    jdbc.batchUpdate("UPDATE events SET nb_vues = COALESCE(nb_vues, 0) + ? WHERE id = ?", events);
+
+    List<Key> keys = new ArrayList<>(counts.keySet());
+    List<Object[]> days = new ArrayList<>(keys.size());
+    for (Key k : keys) days.add(new Object[]{counts.get(k), k.eventId(), Date.valueOf(k.day())});
+    int[] updated = jdbc.batchUpdate(
+        "UPDATE statistiques SET nb_vues = COALESCE(nb_vues, 0) + ? WHERE event_id = ? AND date_consultation = ?", days);
+    // first views of the day (0 rows); a driver reporting no count (negative) is taken as applied
+    for (int i = 0; i < keys.size(); i++) {
+      if (updated[i] == 0) statService.apply(keys.get(i).eventId(), keys.get(i).day(), counts.get(keys.get(i)), 0, BigDecimal.ZERO);
+    }
+  }
+
+  private void writeVisitors(Map<Key, Counts> sketches) {
+    if (sketches.isEmpty()) return;
+    Map<LocalDate, Map<Long, HyperLogLog>> byEvent = new TreeMap<>();
+    sketches.forEach((k, c) -> byEvent.computeIfAbsent(k.day(), d -> new TreeMap<>()).put(k.eventId(), c.visitors));
+    List<Object[]> events = new ArrayList<>();
+    merge("statistiques", "event_id", byEvent, (rowId, merged) -> events.add(new Object[]{merged.toBytes(), merged.estimate(), rowId}));
+    jdbc.batchUpdate("UPDATE statistiques SET visiteurs = ?, nb_visiteurs = ? WHERE id = ?", events);
+
+    Map<Long, Long> organizerOf = organizers(sketches.keySet().stream().map(Key::eventId).distinct().toList());
+    Map<LocalDate, Map<Long, HyperLogLog>> byOrganizer = new TreeMap<>();
+    sketches.forEach((k, c) -> {
+      Long organizerId = organizerOf.get(k.eventId());
+      // deleted since the ping
+      if (organizerId == null) return;
+      byOrganizer.computeIfAbsent(k.day(), d -> new TreeMap<>())
+          .computeIfAbsent(organizerId, o -> new HyperLogLog()).merge(c.visitors.toBytes());
+    });
+    List<Object[]> keys = new ArrayList<>();
+    byOrganizer.forEach((day, perOrganizer) -> perOrganizer.keySet().forEach(o -> keys.add(new Object[]{o, Date.valueOf(day)})));
+    jdbc.batchUpdate("INSERT INTO visiteurs_organisateur (organisateur_id, date_consultation) VALUES (?, ?) " +
+        "ON DUPLICATE KEY UPDATE organisateur_id = organisateur_id", keys);
+    List<Object[]> organizers = new ArrayList<>();
+    merge("visiteurs_organisateur", "organisateur_id", byOrganizer, (rowId, merged) -> organizers.add(new Object[]{merged.toBytes(), rowId}));
+    jdbc.batchUpdate("UPDATE visiteurs_organisateur SET visiteurs = ? WHERE id = ?", organizers);
+  }
+
+  /**
+   * Read-merge of the stored registers of existing (owner, day) rows, locked day by day in id order so
+   * concurrent flushes of other nodes are not lost; the caller writes the result.
+   */
+  private void merge(String table, String owner, Map<LocalDate, Map<Long, HyperLogLog>> sketches,
+                     BiConsumer<Long, HyperLogLog> merged) {
+    sketches.forEach((day, perOwner) -> {
+      List<Long> ids = new ArrayList<>(perOwner.keySet());
+      for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+        List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+        List<Object> args = new ArrayList<>(chunk.size() + 1);
+        args.add(Date.valueOf(day));
+        args.addAll(chunk);
+        jdbc.query("SELECT id, " + owner + ", visiteurs FROM " + table + " WHERE date_consultation = ? AND " + owner + " IN ("
+            + String.join(",", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY id FOR UPDATE", rs -> {
+          HyperLogLog sketch = new HyperLogLog();
+          sketch.merge(rs.getBytes("visiteurs"));
+          sketch.merge(perOwner.get(rs.getLong(owner)).toBytes());
+          merged.accept(rs.getLong("id"), sketch);
+        }, args.toArray());
+      }
+    });
+  }
+
+  private Map<Long, Long> organizers(List<Long> eventIds) {
+    Map<Long, Long> out = new HashMap<>();
+    for (int from = 0; from < eventIds.size(); from += IN_CHUNK) {
+      List<Long> chunk = eventIds.subList(from, Math.min(eventIds.size(), from + IN_CHUNK));
+      jdbc.query("SELECT id, organisateur_id FROM events WHERE id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")",
+          (RowCallbackHandler) rs -> out.put(rs.getLong("id"), rs.getLong("organisateur_id")), chunk.toArray());
+    }
+    return out;
+  }
+}
@@ -0,0 +1,215 @@
+package ma.eventma.service;
+
+import ma.eventma.dto.ReservationDtos;
+import ma.eventma.model.User;
+import ma.eventma.repository.OfferRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room for offers in queue mode ({@code offers.file_attente}).
+ * Buyers get a ticket immediately; a scheduler admits them into {@link ReservationService#create}
+ * at a fixed rate, so an on-sale never uses more than one DB connection per tick.
+ * Queues live in memory on the node that received the request. Which offers are in queue mode is re-read
+ * every {@code refresh-ms}, so organizer changes made on another node apply here within that delay.
+ */
+@Service
+public class WaitingRoomService {
+
+  public enum TicketStatus { EN_FILE, CONFIRMEE, REFUSEE }
+
+  private static final Logger log = LoggerFactory.getLogger(WaitingRoomService.class);
+
+  private final ReservationService reservationService;
+  private final IdempotencyService idempotency;
+  private final OfferRepository offerRepository;
+
+  private final double admissionsPerTick;
+  private final int maxQueueSize;
+  private final long ticketTtlMillis;
+
+  private final Set<Long> queuedOffers = ConcurrentHashMap.newKeySet();
+  /** Bumped by each local change, so a refresh that read the table before it does not undo it. */
+  private final AtomicLong queueModeChanges = new AtomicLong();
+  private final Map<Long, OfferQueue> queues = new ConcurrentHashMap<>();
+  private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+  private double budget;
+
+  public WaitingRoomService(ReservationService reservationService, IdempotencyService idempotency,
+                            OfferRepository offerRepository,
+                            @Value("${app.waiting-room.admissions-per-second:20}") double admissionsPerSecond,
+                            @Value("${app.waiting-room.tick-ms:200}") long tickMs,
+                            @Value("${app.waiting-room.max-queue-size:10000}") int maxQueueSize,
+                            @Value("${app.waiting-room.ticket-ttl-seconds:600}") long ticketTtlSeconds) {
+    this.reservationService = reservationService;
+    this.idempotency = idempotency;
+    this.offerRepository = offerRepository;
+    this.admissionsPerTick = admissionsPerSecond * tickMs / 1000.0;
+    this.maxQueueSize = maxQueueSize;
+    this.ticketTtlMillis = ticketTtlSeconds * 1000L;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadQueuedOffers() {
+    queuedOffers.addAll(offerRepository.findQueuedOfferIds());
+  }
+
+  @Scheduled(fixedDelayString = "${app.waiting-room.refresh-ms:5000}", initialDelayString = "${app.waiting-room.refresh-ms:5000}")
+  public void refreshQueuedOffers() {
+    try {
+      long seen = queueModeChanges.get();
+      Set<Long> current = new HashSet<>(offerRepository.findQueuedOfferIds());
+      if (queueModeChanges.get() != seen) return;
+      queuedOffers.retainAll(current);
+      queuedOffers.addAll(current);
+    } catch (RuntimeException ex) {
+      log.warn("File d'attente: offres en file non relues", ex);
+    }
+  }
+
+  public boolean isQueued(Long offerId) {
+    return queuedOffers.contains(offerId);
+  }
+
+  /** Applied once the caller's transaction commits (at once outside a transaction), so a rollback changes nothing. */
+  public void setQueueMode(Long offerId, boolean enabled) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      applyQueueMode(offerId, enabled);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        applyQueueMode(offerId, enabled);
+      }
+    });
+  }
+
+  private void applyQueueMode(Long offerId, boolean enabled) {
+    queueModeChanges.incrementAndGet();
+    if (enabled) queuedOffers.add(offerId);
+    else queuedOffers.remove(offerId);
+  }
+
+  /** {@code idempotencyKey} may be null; when set, duplicate tickets end up with the same reservation. */
+  public ReservationDtos.QueueTicket enqueue(User client, String idempotencyKey, ReservationDtos.CreateReservationRequest req) {
+    Ticket[] created = new Ticket[1];
+    // atomic with the removal of empty queues in purgeExpired, so a ticket never lands in a dropped queue
+    OfferQueue q = queues.compute(req.offerId(), (id, existing) -> {
+      OfferQueue queue = existing != null ? existing : new OfferQueue();
+      if (queue.size.get() >= maxQueueSize) throw new IllegalArgumentException("File d'attente complète, réessayez plus tard");
+      queue.size.incrementAndGet();
+      Ticket t = new Ticket(UUID.randomUUID().toString(), client, idempotencyKey, req, queue.nextSeq.incrementAndGet());
+      tickets.put(t.id, t);
+      queue.waiting.add(t);
+      created[0] = t;
+      return queue;
+    });
+    return toDto(created[0], q);
+  }
+
+  public ReservationDtos.QueueTicket status(User client, String ticketId) {
+    Ticket t = tickets.get(ticketId);
+    if (t == null || !t.client.getId().equals(client.getId())) {
+      throw new IllegalArgumentException("Ticket introuvable");
+    }
+    return toDto(t, queues.get(t.request.offerId()));
+  }
+
+  /** Releases up to the configured rate of buyers per tick, round-robin over the offers. */
+  @Scheduled(fixedDelayString = "${app.waiting-room.tick-ms:200}")
+  public void admit() {
+    budget = Math.min(budget + admissionsPerTick, Math.max(1.0, admissionsPerTick) * 2);
+    boolean progressed = true;
+    while (budget >= 1.0 && progressed) {
+      progressed = false;
+      for (OfferQueue q : queues.values()) {
+        if (budget < 1.0) break;
+        Ticket t = q.waiting.poll();
+        if (t == null) continue;
+        q.size.decrementAndGet();
+        budget -= 1.0;
+        progressed = true;
+        process(t);
+        q.admittedSeq.set(t.seq);
+      }
+    }
+    purgeExpired();
+  }
+
+  private void process(Ticket t) {
+    try {
+      t.reservation = t.idempotencyKey == null
+          ? reservationService.create(t.client, t.request)
+          : idempotency.execute(t.client.getId(), t.idempotencyKey, t.request, ReservationDtos.ReservationSummary.class,
+              () -> reservationService.create(t.client, t.request)).value();
+      t.status = TicketStatus.CONFIRMEE;
+    } catch (IllegalArgumentException ex) {
+      t.message = ex.getMessage();
+      t.status = TicketStatus.REFUSEE;
+    } catch (RuntimeException ex) {
+      log.error("File d'attente: ticket {} en échec", t.id, ex);
+      t.message = "Erreur interne";
+      t.status = TicketStatus.REFUSEE;
+    }
+    t.finishedAt = System.currentTimeMillis();
+  }
+
+  private void purgeExpired() {
+    long now = System.currentTimeMillis();
+    tickets.values().removeIf(t -> t.status != TicketStatus.EN_FILE && now - t.finishedAt > ticketTtlMillis);
+    for (Long offerId : queues.keySet()) {
+      queues.computeIfPresent(offerId, (id, q) -> q.size.get() == 0 && !queuedOffers.contains(id) ? null : q);
+    }
+  }
+
+  private static ReservationDtos.QueueTicket toDto(Ticket t, OfferQueue q) {
+    long position = t.status == TicketStatus.EN_FILE && q != null ? Math.max(1, t.seq - q.admittedSeq.get()) : 0;
+    return new ReservationDtos.QueueTicket(t.id, t.request.offerId(), t.request.nbPlaces(), t.status.name(),
+        position, t.reservation, t.message);
+  }
+
+  private static final class OfferQueue {
+    final Queue<Ticket> waiting = new ConcurrentLinkedQueue<>();
+    final AtomicLong nextSeq = new AtomicLong();
+    final AtomicLong admittedSeq = new AtomicLong();
+    final AtomicInteger size = new AtomicInteger();
+  }
+
+  private static final class Ticket {
+    final String id;
+    final User client;
+    final String idempotencyKey;
+    final ReservationDtos.CreateReservationRequest request;
+    final long seq;
+    volatile TicketStatus status = TicketStatus.EN_FILE;
+    volatile ReservationDtos.ReservationSummary reservation;
+    volatile String message;
+    volatile long finishedAt;
+
+    Ticket(String id, User client, String idempotencyKey, ReservationDtos.CreateReservationRequest request, long seq) {
+      this.id = id;
+      this.client = client;
+      this.idempotencyKey = idempotencyKey;
+      this.request = request;
+      this.seq = seq;
+    }
+  }
+}
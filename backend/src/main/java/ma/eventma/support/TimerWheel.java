@@ -0,0 +1,77 @@
+package ma.eventma.support;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timer wheel: {@code schedule} and expiry are O(1) per timeout whatever the number of
+ * pending timeouts. Deadlines are rounded up to the tick; timeouts further than one revolution
+ * away wait in their slot for the remaining rounds. {@link #advance} is meant to be driven by a
+ * single thread; {@link #schedule} may be called from any thread and only enqueues, the advancing
+ * thread places new timeouts in their slot.
+ */
+public class TimerWheel<T> {
+
+  private final long tickMillis;
+  private final int mask;
+  private final List<List<Timeout<T>>> slots;
+  private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+  private final long startMillis;
+  private long currentTick;
+
+  public TimerWheel(long tickMillis, int slotCount, long startMillis) {
+    if (Integer.bitCount(slotCount) != 1) throw new IllegalArgumentException("slotCount must be a power of two");
+    this.tickMillis = tickMillis;
+    this.mask = slotCount - 1;
+    this.slots = new ArrayList<>(slotCount);
+    for (int i = 0; i < slotCount; i++) slots.add(new ArrayList<>());
+    this.startMillis = startMillis;
+  }
+
+  public void schedule(T value, long deadlineMillis) {
+    pending.add(new Timeout<>(value, ceilDiv(deadlineMillis - startMillis, tickMillis)));
+  }
+
+  /** Processes every tick up to {@code nowMillis} and returns the values whose deadline has passed. */
+  public List<T> advance(long nowMillis) {
+    List<T> expired = new ArrayList<>();
+    long target = (nowMillis - startMillis) / tickMillis;
+    for (Timeout<T> t; (t = pending.poll()) != null; ) {
+      long tick = Math.max(currentTick, t.deadlineTick);
+      t.remainingRounds = (tick - currentTick) / slots.size();
+      slots.get((int) (tick & mask)).add(t);
+    }
+    while (currentTick <= target) {
+      Iterator<Timeout<T>> it = slots.get((int) (currentTick & mask)).iterator();
+      while (it.hasNext()) {
+        Timeout<T> t = it.next();
+        if (t.remainingRounds <= 0) {
+          expired.add(t.value);
+          it.remove();
+        } else {
+          t.remainingRounds--;
+        }
+      }
+      currentTick++;
+    }
+    return expired;
+  }
+
+  private static long ceilDiv(long a, long b) {
+    return a <= 0 ? 0 : (a + b - 1) / b;
+  }
+
+  private static final class Timeout<T> {
+    final T value;
+    final long deadlineTick;
+    long remainingRounds;
+
+    Timeout(T value, long deadlineTick) {
+      this.value = value;
+      this.deadlineTick = deadlineTick;
+    }
+  }
+}
@@ -6,9 +6,15 @@ import ma.eventma.model.Category;
 import ma.eventma.model.Region;
 import ma.eventma.repository.CategoryRepository;
 import ma.eventma.repository.RegionRepository;
+import ma.eventma.search.EventIndexer;
 import ma.eventma.service.AdminService;
+import ma.eventma.service.OfferReconciliationService;
+import ma.eventma.service.ReferenceDataCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -20,11 +26,18 @@ public class AdminController {
   private final AdminService adminService;
   private final CategoryRepository categoryRepository;
   private final RegionRepository regionRepository;
+  private final OfferReconciliationService reconciliation;
+  private final EventIndexer eventIndexer;
+  private final ReferenceDataCache referenceData;
 
-  public AdminController(AdminService adminService, CategoryRepository categoryRepository, RegionRepository regionRepository) {
+  public AdminController(AdminService adminService, CategoryRepository categoryRepository, RegionRepository regionRepository,
+                         OfferReconciliationService reconciliation, EventIndexer eventIndexer, ReferenceDataCache referenceData) {
     this.adminService = adminService;
     this.categoryRepository = categoryRepository;
     this.regionRepository = regionRepository;
+    this.reconciliation = reconciliation;
+    this.eventIndexer = eventIndexer;
+    this.referenceData = referenceData;
   }
 
   // USERS
@@ -45,14 +58,16 @@ public class AdminController {
 
   // CATEGORIES
   @GetMapping("/categories")
-  public List<Category> categories() {
-    return categoryRepository.findAll();
+  public ResponseEntity<List<Category>> categories(WebRequest request) {
+    return conditional(referenceData.categories(), request);
   }
 
   @PostMapping("/categories")
   public Category createCategory(@RequestBody Category c) {
     c.setId(null);
-    return categoryRepository.save(c);
+    c = categoryRepository.save(c);
+    referenceData.reloadCategories();
+    return c;
   }
 
   @PutMapping("/categories/{id}")
@@ -60,24 +75,31 @@ public class AdminController {
     Category existing = categoryRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Catégorie introuvable"));
     existing.setNom(c.getNom());
     existing.setDescription(c.getDescription());
-    return categoryRepository.save(existing);
+    existing = categoryRepository.save(existing);
+    referenceData.reloadCategories();
+    // indexed search results carry the category name
+    eventIndexer.rebuildAsync();
+    return existing;
   }
 
   @DeleteMapping("/categories/{id}")
   public void deleteCategory(@PathVariable Long id) {
     categoryRepository.deleteById(id);
+    referenceData.reloadCategories();
   }
 
   // REGIONS
   @GetMapping("/regions")
-  public List<Region> regions() {
-    return regionRepository.findAll();
+  public ResponseEntity<List<Region>> regions(WebRequest request) {
+    return conditional(referenceData.regions(), request);
   }
 
   @PostMapping("/regions")
   public Region createRegion(@RequestBody Region r) {
     r.setId(null);
-    return regionRepository.save(r);
+    r = regionRepository.save(r);
+    referenceData.reloadRegions();
+    return r;
   }
 
   @PutMapping("/regions/{id}")
@@ -85,11 +107,32 @@ public class AdminController {
     Region existing = regionRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Région introuvable"));
     existing.setNom(r.getNom());
     existing.setCode(r.getCode());
-    return regionRepository.save(existing);
+    existing = regionRepository.save(existing);
+    referenceData.reloadRegions();
+    eventIndexer.rebuildAsync();
+    return existing;
   }
 
   @DeleteMapping("/regions/{id}")
   public void deleteRegion(@PathVariable Long id) {
     regionRepository.deleteById(id);
+    referenceData.reloadRegions();
+  }
+
+  // RECONCILIATION (offers vs reservations)
+  @PostMapping("/reconciliation")
+  public AdminDtos.ReconciliationReport startReconciliation(@RequestParam(defaultValue = "false") boolean repair) {
+    return reconciliation.start(repair);
+  }
+
+  @GetMapping("/reconciliation")
+  public AdminDtos.ReconciliationReport reconciliationReport() {
+    return reconciliation.report();
+  }
+
+  /** 304 when the client's If-None-Match still matches the snapshot; clients must revalidate every time. */
+  private static <T> ResponseEntity<List<T>> conditional(ReferenceDataCache.Snapshot<T> snapshot, WebRequest request) {
+    if (request.checkNotModified(snapshot.etag())) return null;
+    return ResponseEntity.ok().eTag(snapshot.etag()).cacheControl(CacheControl.noCache().cachePrivate()).body(snapshot.items());
   }
 }
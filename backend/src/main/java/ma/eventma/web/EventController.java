@@ -1,28 +1,50 @@
 package ma.eventma.web;
 
+import jakarta.servlet.http.HttpServletResponse;
 import ma.eventma.dto.EventDtos;
 import ma.eventma.dto.OfferDtos;
-import ma.eventma.repository.OfferRepository;
+import ma.eventma.search.PriceFilter;
+import ma.eventma.security.UserPrincipal;
+import ma.eventma.service.EventResponseCache;
 import ma.eventma.service.EventService;
-import ma.eventma.service.StatService;
+import ma.eventma.service.EventStreamService;
+import ma.eventma.service.SearchResultCache;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/events")
 public class EventController {
 
+  private static final String VISITOR_COOKIE = "eventma_visitor";
+  private static final Pattern VISITOR_ID = Pattern.compile("[0-9a-f-]{36}");
+
   private final EventService eventService;
-  private final OfferRepository offerRepository;
-  private final StatService statService;
+  private final EventStreamService eventStreamService;
+  private final EventResponseCache responseCache;
+  private final SearchResultCache searchCache;
 
-  public EventController(EventService eventService, OfferRepository offerRepository, StatService statService) {
+  public EventController(EventService eventService, EventStreamService eventStreamService, EventResponseCache responseCache,
+                         SearchResultCache searchCache) {
     this.eventService = eventService;
-    this.offerRepository = offerRepository;
-    this.statService = statService;
+    this.eventStreamService = eventStreamService;
+    this.responseCache = responseCache;
+    this.searchCache = searchCache;
   }
 
   @GetMapping
@@ -32,31 +54,96 @@ public class EventController {
       @RequestParam(required = false) Long categoryId,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+      @RequestParam(required = false) BigDecimal priceMin,
+      @RequestParam(required = false) BigDecimal priceMax,
+      @RequestParam(defaultValue = "false") boolean availableOnly,
+      @RequestParam(required = false) String sort
+  ) {
+    return searchCache.search(q, regionId, categoryId, dateFrom, dateTo, PriceFilter.of(priceMin, priceMax, availableOnly), sort);
+  }
+
+  @GetMapping("/page")
+  public EventDtos.EventPage page(
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) Long regionId,
+      @RequestParam(required = false) Long categoryId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+      @RequestParam(required = false) BigDecimal priceMin,
+      @RequestParam(required = false) BigDecimal priceMax,
+      @RequestParam(defaultValue = "false") boolean availableOnly,
+      @RequestParam(required = false) String sort,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int limit,
+      @RequestParam(defaultValue = "false") boolean facets
+  ) {
+    return eventService.page(q, regionId, categoryId, dateFrom, dateTo, PriceFilter.of(priceMin, priceMax, availableOnly), sort, cursor, limit, facets);
+  }
+
+  /** Whole result set as a JSON array, written while it is read. */
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody stream(
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) Long regionId,
+      @RequestParam(required = false) Long categoryId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+      @RequestParam(required = false) BigDecimal priceMin,
+      @RequestParam(required = false) BigDecimal priceMax,
+      @RequestParam(defaultValue = "false") boolean availableOnly,
       @RequestParam(required = false) String sort
   ) {
-    return eventService.search(q, regionId, categoryId, dateFrom, dateTo, sort);
+    PriceFilter price = PriceFilter.of(priceMin, priceMax, availableOnly);
+    return out -> eventStreamService.write(q, regionId, categoryId, dateFrom, dateTo, price, sort, out);
+  }
+
+  @GetMapping("/suggest")
+  public List<EventDtos.Suggestion> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "8") int limit) {
+    return eventService.suggest(prefix, limit);
   }
 
+  /** Body is an {@link EventDtos.EventDetail}, served from the response cache. */
   @GetMapping("/{id}")
-  public EventDtos.EventDetail detail(@PathVariable Long id) {
-    return eventService.getById(id);
+  public ResponseEntity<byte[]> detail(@PathVariable Long id, WebRequest request) {
+    return conditional(responseCache.detail(id), request);
   }
 
   @PostMapping("/{id}/view")
-  public void view(@PathVariable Long id) {
-    var event = eventService.getEntityById(id);
-    eventService.incrementView(event);
-    statService.onView(event);
+  public void view(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal principal,
+                   @CookieValue(name = VISITOR_COOKIE, required = false) String visitorId, HttpServletResponse response) {
+    eventService.recordView(id, visitor(principal, visitorId, response));
   }
 
+  /** Body is a list of {@link OfferDtos.OfferSummary}, served from the response cache. */
   @GetMapping("/{id}/offers")
-  public List<OfferDtos.OfferSummary> offers(@PathVariable Long id) {
-    return offerRepository.findByEventId(id).stream()
-        .filter(o -> o.getDateExpiration() == null || !o.getDateExpiration().isBefore(LocalDate.now()))
-        .map(o -> {
-          int sold = o.getPlacesInitiales() - o.getPlacesDisponibles();
-          return new OfferDtos.OfferSummary(o.getId(), o.getTypeBillet(), o.getPrix(), o.getPlacesInitiales(), o.getPlacesDisponibles(), sold, o.getDateExpiration(), o.getEvent().getId(), o.getEvent().getTitre());
-        })
-        .toList();
+  public ResponseEntity<byte[]> offers(@PathVariable Long id, WebRequest request) {
+    return conditional(responseCache.offers(id), request);
+  }
+
+  /** Offers of several listing cards at once: {@code ?ids=1,2,3}. */
+  @GetMapping("/offers")
+  public List<OfferDtos.EventOffers> offers(@RequestParam List<Long> ids) {
+    return eventService.offers(ids);
+  }
+
+  private static ResponseEntity<byte[]> conditional(EventResponseCache.Entry entry, WebRequest request) {
+    if (request.checkNotModified(entry.etag())) return null;
+    return ResponseEntity.ok().eTag(entry.etag()).cacheControl(CacheControl.noCache()).contentType(MediaType.APPLICATION_JSON)
+        .body(entry.body());
+  }
+
+  /**
+   * The signed-in user, else the browser's visitor cookie, issued on its first ping: only its hash is kept,
+   * in the visitor sketch. Not the client address, which proxies and NAT share between many people.
+   * A client that drops the cookie gets a new identity, so its repeats are counted.
+   */
+  private static String visitor(UserPrincipal principal, String visitorId, HttpServletResponse response) {
+    if (principal != null) return "u:" + principal.getUser().getId();
+    if (visitorId == null || !VISITOR_ID.matcher(visitorId).matches()) {
+      visitorId = UUID.randomUUID().toString();
+      response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(VISITOR_COOKIE, visitorId)
+          .path("/api/events").maxAge(Duration.ofDays(365)).httpOnly(true).sameSite("Lax").build().toString());
+    }
+    return "c:" + visitorId;
   }
 }
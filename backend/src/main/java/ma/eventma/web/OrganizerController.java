@@ -6,10 +6,12 @@ import ma.eventma.dto.OfferDtos;
 import ma.eventma.dto.StatsDtos;
 import ma.eventma.security.UserPrincipal;
 import ma.eventma.service.OrganizerService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -79,4 +81,12 @@ public class OrganizerController {
   public StatsDtos.Overview overview(@AuthenticationPrincipal UserPrincipal principal) {
     return organizerService.overview(principal.getUser());
   }
+
+  /** Views, unique visitors and reservations of one event over a period (default: the last 30 days). */
+  @GetMapping("/stats/events/{id}/visitors")
+  public StatsDtos.Visitors visitors(@AuthenticationPrincipal UserPrincipal principal, @PathVariable Long id,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return organizerService.visitors(principal.getUser(), id, from, to);
+  }
 }
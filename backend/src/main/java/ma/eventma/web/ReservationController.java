@@ -3,8 +3,11 @@ package ma.eventma.web;
 import jakarta.validation.Valid;
 import ma.eventma.dto.ReservationDtos;
 import ma.eventma.security.UserPrincipal;
+import ma.eventma.service.IdempotencyService;
 import ma.eventma.service.ReservationService;
-import ma.eventma.service.StatService;
+import ma.eventma.service.WaitingRoomService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,20 +18,55 @@ import java.util.List;
 public class ReservationController {
 
   private final ReservationService reservationService;
-  private final StatService statService;
+  private final WaitingRoomService waitingRoom;
+  private final IdempotencyService idempotency;
 
-  public ReservationController(ReservationService reservationService, StatService statService) {
+  public ReservationController(ReservationService reservationService, WaitingRoomService waitingRoom, IdempotencyService idempotency) {
     this.reservationService = reservationService;
-    this.statService = statService;
+    this.waitingRoom = waitingRoom;
+    this.idempotency = idempotency;
   }
 
   @PostMapping
-  public ReservationDtos.ReservationSummary create(@AuthenticationPrincipal UserPrincipal principal,
-                                                   @Valid @RequestBody ReservationDtos.CreateReservationRequest req) {
-    var res = reservationService.create(principal.getUser(), req);
-    // stats: reservation
-    statService.onReservationConfirmed(res.eventId(), res.montantTotal());
-    return res;
+  public ResponseEntity<?> create(@AuthenticationPrincipal UserPrincipal principal,
+                                  @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                  @Valid @RequestBody ReservationDtos.CreateReservationRequest req) {
+    if (waitingRoom.isQueued(req.offerId())) {
+      // queue mode: 202 + ticket, poll GET /queue/{ticketId}
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(waitingRoom.enqueue(principal.getUser(), idempotencyKey, req));
+    }
+    if (idempotencyKey != null) {
+      return ResponseEntity.ok(idempotency.execute(principal.getUser().getId(), idempotencyKey, req, ReservationDtos.ReservationSummary.class,
+          () -> reservationService.create(principal.getUser(), req)).value());
+    }
+    return ResponseEntity.ok(reservationService.create(principal.getUser(), req));
+  }
+
+  @PostMapping("/basket")
+  public ReservationDtos.BasketSummary basket(@AuthenticationPrincipal UserPrincipal principal,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                              @Valid @RequestBody ReservationDtos.CreateBasketRequest req) {
+    if (idempotencyKey != null) {
+      return idempotency.execute(principal.getUser().getId(), idempotencyKey, req, ReservationDtos.BasketSummary.class,
+          () -> reservationService.createBasket(principal.getUser(), req)).value();
+    }
+    return reservationService.createBasket(principal.getUser(), req);
+  }
+
+  @PostMapping("/hold")
+  public ReservationDtos.ReservationSummary hold(@AuthenticationPrincipal UserPrincipal principal,
+                                                 @Valid @RequestBody ReservationDtos.CreateReservationRequest req) {
+    return reservationService.hold(principal.getUser(), req);
+  }
+
+  @PostMapping("/{id}/confirm")
+  public ReservationDtos.ReservationSummary confirm(@AuthenticationPrincipal UserPrincipal principal, @PathVariable Long id) {
+    return reservationService.confirm(principal.getUser(), id);
+  }
+
+  @GetMapping("/queue/{ticketId}")
+  public ReservationDtos.QueueTicket queueStatus(@AuthenticationPrincipal UserPrincipal principal, @PathVariable String ticketId) {
+    return waitingRoom.status(principal.getUser(), ticketId);
   }
 
   @GetMapping("/me")
@@ -38,11 +76,6 @@ public class ReservationController {
 
   @PostMapping("/{id}/cancel")
   public ReservationDtos.ReservationSummary cancel(@AuthenticationPrincipal UserPrincipal principal, @PathVariable Long id) {
-    var before = reservationService.myReservations(principal.getUser()).stream().filter(r -> r.id().equals(id)).findFirst().orElse(null);
-    var res = reservationService.cancel(principal.getUser(), id);
-    if (before != null && "CONFIRMEE".equals(before.statut()) && "ANNULEE".equals(res.statut())) {
-      statService.onReservationCancelled(res.eventId(), before.montantTotal());
-    }
-    return res;
+    return reservationService.cancel(principal.getUser(), id);
   }
 }
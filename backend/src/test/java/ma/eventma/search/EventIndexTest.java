@@ -0,0 +1,94 @@
+package ma.eventma.search;
+
+import ma.eventma.dto.EventDtos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventIndexTest {
+
+  private final EventIndex index = new EventIndex();
+
+  @BeforeEach
+  void load() {
+    index.load(List.of(
+        summary(1L, "Concert rock", "Casablanca", 1L, 1L, LocalDate.of(2026, 11, 6)),
+        summary(2L, "Soirée désert", "Merzouga", 2L, 1L, LocalDate.of(2026, 11, 7)),
+        summary(3L, "Festival des arts", "Marrakech", 2L, 2L, LocalDate.of(2026, 12, 4)),
+        summary(4L, "Conférence", "Rabat", 1L, 2L, LocalDate.of(2026, 12, 18))));
+  }
+
+  @Test
+  void typoCandidatesIncludeShortTermsSharingNoTrigram() {
+    // "rcok" shares no trigram with "rock"
+    assertThat(ids("rcok")).containsExactly(1L);
+    assertThat(ids("dsert")).containsExactly(2L);
+    assertThat(ids("marakesh")).containsExactly(3L);
+    assertThat(ids("fetsivla")).containsExactly(3L);
+  }
+
+  @Test
+  void typoCandidatesFollowUpdates() {
+    index.remove(1L);
+    assertThat(ids("rcok")).isEmpty();
+    index.upsert(summary(1L, "Concert rock", "Casablanca", 1L, 1L, LocalDate.of(2026, 11, 6)));
+    assertThat(ids("rcok")).containsExactly(1L);
+  }
+
+  @Test
+  void stopWordQueryMatchesAsPrefixNotEverything() {
+    assertThat(ids("de")).containsExactly(2L);
+    assertThat(ids("a")).containsExactly(3L);
+    assertThat(ids("le")).isEmpty();
+  }
+
+  @Test
+  void facetsCountEveryHitAndIgnoreTheirOwnFilter() {
+    var page = index.page(null, 1L, null, null, null, PriceFilter.NONE, EventSort.parse(null), null, 1, true);
+    assertThat(page.items()).hasSize(1);
+    // region counts ignore the region filter; category counts keep it
+    assertThat(counts(page.facets().regions())).containsExactly("1=2", "2=2");
+    assertThat(counts(page.facets().categories())).containsExactly("1=1", "2=1");
+
+    page = index.page(null, 1L, 2L, LocalDate.of(2026, 12, 1), null, PriceFilter.NONE, EventSort.parse(null), null, 10, true);
+    assertThat(page.items()).extracting(EventDtos.EventSummary::id).containsExactly(4L);
+    assertThat(counts(page.facets().regions())).containsExactly("1=1", "2=1");
+    assertThat(counts(page.facets().categories())).containsExactly("2=1");
+    // date buckets ignore the date filter
+    assertThat(page.facets().mois()).extracting(b -> b.debut() + "=" + b.count()).containsExactly("2026-12-01=1");
+    page = index.page(null, 1L, null, LocalDate.of(2026, 12, 1), null, PriceFilter.NONE, EventSort.parse(null), null, 10, true);
+    assertThat(page.facets().mois()).extracting(b -> b.debut() + "=" + b.count()).containsExactly("2026-11-01=1", "2026-12-01=1");
+    assertThat(page.facets().semaines()).extracting(EventDtos.DateBucket::debut)
+        .containsExactly(LocalDate.of(2026, 11, 2), LocalDate.of(2026, 12, 14));
+  }
+
+  @Test
+  void facetsFollowTheTextQueryAndPriceFilter() {
+    var page = index.page("rock", null, null, null, null, PriceFilter.NONE, EventSort.parse(null), null, 10, true);
+    assertThat(counts(page.facets().regions())).containsExactly("1=1");
+    page = index.page(null, null, null, null, null, PriceFilter.of(BigDecimal.ONE, BigDecimal.valueOf(5), false),
+        EventSort.parse(null), null, 10, true);
+    assertThat(page.items()).isEmpty();
+    assertThat(page.facets().regions()).isEmpty();
+  }
+
+  private static List<String> counts(List<EventDtos.FacetCount> facets) {
+    return facets.stream().map(f -> f.id() + "=" + f.count()).sorted().toList();
+  }
+
+  private List<Long> ids(String q) {
+    return index.search(q, null, null, null, null, PriceFilter.NONE, null).stream().map(EventDtos.EventSummary::id).toList();
+  }
+
+  static EventDtos.EventSummary summary(Long id, String titre, String lieu, Long regionId, Long categorieId, LocalDate date) {
+    return new EventDtos.EventSummary(id, titre, null, date, LocalTime.of(20, 0), lieu, null, 0, "PUBLIE",
+        categorieId, "Catégorie " + categorieId, regionId, "Région " + regionId, 1L, "Org Anisateur",
+        BigDecimal.TEN, BigDecimal.TEN, 10, false);
+  }
+}
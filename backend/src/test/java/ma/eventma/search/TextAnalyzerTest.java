@@ -0,0 +1,44 @@
+package ma.eventma.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextAnalyzerTest {
+
+  @Test
+  void distanceCountsEditsAndAdjacentTranspositions() {
+    assertThat(TextAnalyzer.distance("festival", "festival", 2)).isZero();
+    assertThat(TextAnalyzer.distance("festival", "festivel", 2)).isEqualTo(1);
+    assertThat(TextAnalyzer.distance("festival", "festval", 2)).isEqualTo(1);
+    assertThat(TextAnalyzer.distance("festival", "festivall", 2)).isEqualTo(1);
+    assertThat(TextAnalyzer.distance("rock", "rcok", 1)).isEqualTo(1);
+    assertThat(TextAnalyzer.distance("concert", "cnocret", 2)).isEqualTo(2);
+  }
+
+  @Test
+  void distanceStopsPastMax() {
+    assertThat(TextAnalyzer.distance("kitten", "sitting", 2)).isEqualTo(3);
+    assertThat(TextAnalyzer.distance("gala", "galaxies", 2)).isEqualTo(3);
+    assertThat(TextAnalyzer.distance("abcd", "wxyz", 1)).isEqualTo(2);
+  }
+
+  @Test
+  void stemFoldsPluralsMuteEAndDoubledLetters() {
+    assertThat(TextAnalyzer.stem("theatres")).isEqualTo("theatr");
+    assertThat(TextAnalyzer.stem("theatre")).isEqualTo("theatr");
+    assertThat(TextAnalyzer.stem("festivaux")).isEqualTo("festival");
+    assertThat(TextAnalyzer.stem("marrakech")).isEqualTo(TextAnalyzer.stem("marakech"));
+    assertThat(TextAnalyzer.stem("essaouira")).isEqualTo(TextAnalyzer.stem("esaouira"));
+    assertThat(TextAnalyzer.stem("bus")).isEqualTo("bus");
+    assertThat(TextAnalyzer.stem("2024")).isEqualTo("2024");
+  }
+
+  @Test
+  void termsDropStopWordsAndSingleLetters() {
+    assertThat(TextAnalyzer.terms("Festival de l'Été à Fès")).containsExactly("festival", "ete", "fes");
+    assertThat(TextAnalyzer.terms("de la")).isEmpty();
+    assertThat(TextAnalyzer.words("de la")).containsExactly("de", "la");
+    assertThat(TextAnalyzer.terms("Théâtres", "THEATRE")).containsExactly("theatr");
+  }
+}
@@ -0,0 +1,60 @@
+package ma.eventma.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/** Estimates within a few standard errors (about 1.6%), and merges that never count a visitor twice. */
+class HyperLogLogTest {
+
+  @Test
+  void estimateErrorStaysWithinBounds() {
+    for (int n : new int[]{10, 1_000, 10_000, 100_000, 1_000_000}) {
+      HyperLogLog sketch = new HyperLogLog();
+      for (int i = 0; i < n; i++) sketch.add("visitor-" + n + "-" + i);
+      // about three standard errors
+      assertThat((double) sketch.estimate()).as("n = %d", n).isCloseTo(n, within(Math.max(1.0, 0.05 * n)));
+    }
+  }
+
+  @Test
+  void repeatsDoNotChangeTheSketch() {
+    HyperLogLog sketch = new HyperLogLog();
+    assertThat(sketch.add("c:a")).isTrue();
+    assertThat(sketch.add("c:a")).isFalse();
+    assertThat(sketch.estimate()).isEqualTo(1);
+  }
+
+  @Test
+  void mergeIsIdempotentAndMatchesTheUnion() {
+    HyperLogLog a = new HyperLogLog();
+    HyperLogLog b = new HyperLogLog();
+    HyperLogLog union = new HyperLogLog();
+    for (int i = 0; i < 20_000; i++) {
+      (i % 2 == 0 ? a : b).add("v" + i);
+      if (i % 3 == 0) b.add("v" + i);
+      union.add("v" + i);
+    }
+    HyperLogLog merged = new HyperLogLog();
+    merged.merge(a.toBytes());
+    merged.merge(b.toBytes());
+    assertThat(merged.toBytes()).isEqualTo(union.toBytes());
+
+    byte[] once = merged.toBytes();
+    merged.merge(a.toBytes());
+    merged.merge(b.toBytes());
+    merged.merge(once);
+    assertThat(merged.toBytes()).isEqualTo(once);
+    assertThat(HyperLogLog.estimate(once)).isEqualTo(union.estimate());
+  }
+
+  @Test
+  void emptyOrMissingRegistersEstimateZero() {
+    assertThat(new HyperLogLog().estimate()).isZero();
+    assertThat(HyperLogLog.estimate(null)).isZero();
+    HyperLogLog sketch = new HyperLogLog();
+    sketch.merge(null);
+    assertThat(sketch.estimate()).isZero();
+  }
+}
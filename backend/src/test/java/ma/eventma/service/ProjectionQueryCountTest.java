@@ -0,0 +1,134 @@
+package ma.eventma.service;
+
+import ma.eventma.model.Event;
+import ma.eventma.model.EventStatus;
+import ma.eventma.model.Offer;
+import ma.eventma.model.Reservation;
+import ma.eventma.model.ReservationStatus;
+import ma.eventma.model.User;
+import ma.eventma.repository.CategoryRepository;
+import ma.eventma.repository.EventRepository;
+import ma.eventma.repository.OfferRepository;
+import ma.eventma.repository.RegionRepository;
+import ma.eventma.repository.ReservationRepository;
+import ma.eventma.repository.UserRepository;
+import ma.eventma.search.EventIndexer;
+import ma.eventma.support.SqlCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Listing, detail, organizer and reservation paths must cost a fixed number of statements, not one per row. */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProjectionQueryCountTest {
+
+  private static final int EVENTS = 6;
+  private static final int OFFERS_PER_EVENT = 2;
+
+  @Autowired EventService eventService;
+  @Autowired OrganizerService organizerService;
+  @Autowired ReservationService reservationService;
+  @Autowired EventIndexer eventIndexer;
+  @Autowired UserRepository userRepository;
+  @Autowired EventRepository eventRepository;
+  @Autowired OfferRepository offerRepository;
+  @Autowired ReservationRepository reservationRepository;
+  @Autowired CategoryRepository categoryRepository;
+  @Autowired RegionRepository regionRepository;
+
+  private User organizer;
+  private User client;
+  private Event firstEvent;
+  private final List<Long> eventIds = new ArrayList<>();
+
+  @BeforeEach
+  void fixture() {
+    organizer = newUser("org");
+    client = newUser("client");
+    var categories = categoryRepository.findAll();
+    var regions = regionRepository.findAll();
+    for (int i = 0; i < EVENTS; i++) {
+      Event e = eventRepository.save(Event.builder()
+          .titre("Projection " + i).lieu("Fès").dateEvent(LocalDate.now().plusDays(10 + i)).heureDebut(LocalTime.NOON)
+          .nbVues(i).statut(EventStatus.PUBLIE).createdAt(LocalDateTime.now())
+          .categorie(categories.get(i % categories.size())).region(regions.get(i % regions.size())).organisateur(organizer)
+          .build());
+      if (firstEvent == null) firstEvent = e;
+      eventIds.add(e.getId());
+      for (int o = 0; o < OFFERS_PER_EVENT; o++) {
+        Offer offer = offerRepository.save(Offer.builder().event(e).typeBillet("T" + o).prix(BigDecimal.TEN)
+            .placesInitiales(100).placesDisponibles(99).dateExpiration(LocalDate.now().plusDays(5)).build());
+        reservationRepository.save(Reservation.builder().codeReservation("RES-" + UUID.randomUUID()).dateReservation(LocalDateTime.now())
+            .nbPlaces(1).montantTotal(BigDecimal.TEN).statut(ReservationStatus.CONFIRMEE).user(client).offer(offer).build());
+      }
+    }
+  }
+
+  @Test
+  void organizerPaths() {
+    assertThat(statements(() -> organizerService.myEvents(organizer))).isEqualTo(1);
+    assertThat(organizerService.myEvents(organizer)).hasSize(EVENTS);
+
+    assertThat(statements(() -> organizerService.myOffers(organizer, null))).isEqualTo(1);
+    assertThat(organizerService.myOffers(organizer, null)).hasSize(EVENTS * OFFERS_PER_EVENT);
+
+    assertThat(statements(() -> organizerService.overview(organizer))).isEqualTo(5);
+    var overview = organizerService.overview(organizer);
+    assertThat(overview.totalReservations()).isEqualTo(EVENTS * OFFERS_PER_EVENT);
+    assertThat(overview.vuesParEvenement()).hasSize(EVENTS);
+
+    var empty = organizerService.overview(newUser("org"));
+    assertThat(empty.totalReservations()).isZero();
+    assertThat(empty.vuesParEvenement()).isEmpty();
+  }
+
+  @Test
+  void publicPaths() {
+    assertThat(statements(() -> eventService.getById(firstEvent.getId()))).isEqualTo(1);
+    assertThat(eventService.getById(firstEvent.getId()).organisateurNomComplet()).isEqualTo(organizer.getNom() + " " + organizer.getPrenom());
+
+    assertThat(statements(() -> eventService.offers(firstEvent.getId()))).isEqualTo(1);
+    assertThat(eventService.offers(firstEvent.getId())).hasSize(OFFERS_PER_EVENT);
+    assertThat(statements(() -> eventService.offers(eventIds))).isEqualTo(1);
+    assertThat(eventService.offers(eventIds)).hasSize(EVENTS)
+        .allSatisfy(o -> assertThat(o.placesRestantes()).isEqualTo(OFFERS_PER_EVENT * 99));
+
+    Specification<Event> published = (root, query, cb) -> cb.equal(root.get("statut"), EventStatus.PUBLIE);
+    assertThat(statements(() -> eventRepository.findSummaries(published, Sort.by("id"), 0))).isEqualTo(1);
+    assertThat(statements(() -> { eventIndexer.rebuild(); return null; })).isEqualTo(1);
+  }
+
+  @Test
+  void reservationPaths() {
+    assertThat(statements(() -> reservationService.myReservations(client))).isEqualTo(1);
+    assertThat(reservationService.myReservations(client)).hasSize(EVENTS * OFFERS_PER_EVENT);
+  }
+
+  private static int statements(Supplier<?> call) {
+    SqlCounter.reset();
+    call.get();
+    return SqlCounter.count();
+  }
+
+  private User newUser(String role) {
+    String login = "projection-" + role + "-" + UUID.randomUUID();
+    return userRepository.save(User.builder().nom("Projection").prenom(role).email(login + "@example.ma").password("x")
+        .enabled(true).dateInscription(LocalDateTime.now()).build());
+  }
+}
@@ -0,0 +1,56 @@
+package ma.eventma.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Repeats dropped, first views kept at about the configured false-positive rate, memory bounded by rotation. */
+class RepeatViewFilterTest {
+
+  private static final int EXPECTED = 10_000;
+
+  @Test
+  void repeatWithinWindowIsDropped() {
+    RepeatViewFilter filter = new RepeatViewFilter(new SimpleMeterRegistry(), 1800, EXPECTED, 0.01);
+    assertThat(filter.firstView(1L, "c:a")).isTrue();
+    assertThat(filter.firstView(1L, "c:a")).isFalse();
+    assertThat(filter.firstView(2L, "c:a")).isTrue();
+    assertThat(filter.firstView(1L, "c:b")).isTrue();
+    assertThat(filter.firstView(1L, null)).isTrue();
+    assertThat(filter.firstView(1L, null)).isTrue();
+  }
+
+  @Test
+  void falsePositiveRateStaysNearTargetAtConfiguredSize() {
+    RepeatViewFilter filter = new RepeatViewFilter(new SimpleMeterRegistry(), 1800, EXPECTED, 0.01);
+    for (int i = 0; i < EXPECTED - 1000; i++) filter.firstView(1L, "fill-" + i);
+    int dropped = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (!filter.firstView(1L, "probe-" + i)) dropped++;
+    }
+    // every probe is new: a drop is a false positive; the filter ends at its configured size
+    assertThat(dropped).isLessThanOrEqualTo(20);
+    assertThat(filter.falsePositiveRate()).isBetween(0.005, 0.015);
+  }
+
+  @Test
+  void rotationForgetsOlderGenerations() {
+    int expected = 100;
+    RepeatViewFilter filter = new RepeatViewFilter(new SimpleMeterRegistry(), 1800, expected, 0.01);
+    for (int i = 0; i < expected; i++) assertThat(filter.firstView(1L, "first-" + i)).isTrue();
+    // the full generation becomes the previous one: still remembered
+    assertThat(filter.firstView(1L, "first-0")).isFalse();
+    for (int i = 0; i < 2 * expected; i++) filter.firstView(1L, "second-" + i);
+    assertThat(filter.firstView(1L, "first-1")).isTrue();
+    assertThat(filter.falsePositiveRate()).isLessThan(0.05);
+  }
+
+  @Test
+  void windowExpiryForgetsRepeats() throws InterruptedException {
+    RepeatViewFilter filter = new RepeatViewFilter(new SimpleMeterRegistry(), 1, EXPECTED, 0.01);
+    assertThat(filter.firstView(1L, "c:a")).isTrue();
+    Thread.sleep(2100);
+    assertThat(filter.firstView(1L, "c:a")).isTrue();
+  }
+}
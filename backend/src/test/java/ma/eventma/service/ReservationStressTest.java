@@ -0,0 +1,210 @@
+package ma.eventma.service;
+
+import ma.eventma.dto.OfferDtos;
+import ma.eventma.dto.ReservationDtos;
+import ma.eventma.model.Event;
+import ma.eventma.model.EventStatus;
+import ma.eventma.model.Offer;
+import ma.eventma.model.Reservation;
+import ma.eventma.model.ReservationStatus;
+import ma.eventma.model.User;
+import ma.eventma.repository.CategoryRepository;
+import ma.eventma.repository.EventRepository;
+import ma.eventma.repository.OfferRepository;
+import ma.eventma.repository.RegionRepository;
+import ma.eventma.repository.ReservationRepository;
+import ma.eventma.repository.UserRepository;
+import ma.eventma.support.StressRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers reservation create/cancel and offer resizing from many threads against H2 in MySQL mode,
+ * then checks the seat invariants. Load and the latency gate are tunable:
+ * {@code -Dstress.threads=200 -Dstress.iterations=20 -Dstress.maxP99Ms=0} (0 disables the gate).
+ * Not part of the default test run: {@code mvn test -Pstress}.
+ */
+@Tag("stress")
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationStressTest {
+
+  private static final Logger log = LoggerFactory.getLogger(ReservationStressTest.class);
+  private static final int THREADS = Integer.getInteger("stress.threads", 200);
+  private static final int ITERATIONS = Integer.getInteger("stress.iterations", 20);
+  private static final long MAX_P99_MS = Long.getLong("stress.maxP99Ms", 0);
+  private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+  @Autowired ReservationService reservationService;
+  @Autowired OrganizerService organizerService;
+  @Autowired OfferReconciliationService reconciliation;
+  @Autowired UserRepository userRepository;
+  @Autowired EventRepository eventRepository;
+  @Autowired OfferRepository offerRepository;
+  @Autowired ReservationRepository reservationRepository;
+  @Autowired CategoryRepository categoryRepository;
+  @Autowired RegionRepository regionRepository;
+
+  private User organizer;
+  private Event event;
+
+  @BeforeEach
+  void fixture() {
+    int n = FIXTURES.incrementAndGet();
+    organizer = newUser("stress-org-" + n);
+    event = eventRepository.save(Event.builder()
+        .titre("Stress " + n)
+        .dateEvent(LocalDate.now().plusDays(30))
+        .heureDebut(LocalTime.of(20, 0))
+        .lieu("Casablanca")
+        .nbVues(0)
+        .statut(EventStatus.PUBLIE)
+        .categorie(categoryRepository.findAll().get(0))
+        .region(regionRepository.findAll().get(0))
+        .organisateur(organizer)
+        .createdAt(LocalDateTime.now())
+        .build());
+  }
+
+  @Test
+  void concurrentCreatesNeverOversell() throws Exception {
+    int capacity = THREADS * ITERATIONS / 4;
+    Offer offer = newOffer(capacity);
+    List<User> clients = newClients(THREADS);
+
+    StressRun run = new StressRun("create, demand ~8x capacity");
+    run.execute(THREADS, ITERATIONS, (t, i, r) -> {
+      int nb = 1 + ThreadLocalRandom.current().nextInt(3);
+      try {
+        r.time("create", () -> reservationService.create(clients.get(t), new ReservationDtos.CreateReservationRequest(offer.getId(), nb)));
+      } catch (IllegalArgumentException soldOut) {
+        // expected once the offer is full
+      }
+    });
+    log.info("{}", run.report());
+
+    Offer after = offerRepository.findById(offer.getId()).orElseThrow();
+    long sold = seatsHeld(offer.getId());
+    assertThat(after.getPlacesDisponibles()).isGreaterThanOrEqualTo(0);
+    assertThat(sold).isEqualTo(capacity - after.getPlacesDisponibles());
+    assertThat(reservationsOf(offer.getId())).hasSize((int) run.counter("create.ok"));
+    // demand is far above capacity: at most 2 seats can be left (a 3-seat request against 2 remaining)
+    assertThat(after.getPlacesDisponibles()).isLessThan(3);
+    assertThat(run.counter("create.ok") + run.counter("create.IllegalArgumentException")).isEqualTo((long) THREADS * ITERATIONS);
+    assertLatencyGate(run, "create");
+  }
+
+  @Test
+  void mixedCreateCancelAndResizeConserveSeats() throws Exception {
+    Offer offer = newOffer(THREADS * ITERATIONS / 2);
+    // two threads per client so the same reservation can be cancelled twice concurrently
+    List<User> clients = newClients(THREADS / 2);
+    List<Queue<Long>> owned = new ArrayList<>();
+    for (int c = 0; c < clients.size(); c++) owned.add(new ConcurrentLinkedQueue<>());
+    OfferDtos.UpdateOfferRequest base = new OfferDtos.UpdateOfferRequest(event.getId(), offer.getTypeBillet(), offer.getPrix(),
+        null, offer.getDateExpiration(), false);
+
+    StressRun run = new StressRun("create/cancel/resize mix");
+    run.execute(THREADS, ITERATIONS, (t, i, r) -> {
+      int c = t % clients.size();
+      User client = clients.get(c);
+      int dice = ThreadLocalRandom.current().nextInt(100);
+      try {
+        if (dice < 60) {
+          int nb = 1 + ThreadLocalRandom.current().nextInt(4);
+          var res = r.time("create", () -> reservationService.create(client, new ReservationDtos.CreateReservationRequest(offer.getId(), nb)));
+          owned.get(c).add(res.id());
+        } else if (dice < 90) {
+          Long id = owned.get(c).peek();
+          if (id == null) return;
+          // peek, not poll: the sibling thread may cancel the same reservation
+          r.time("cancel", () -> reservationService.cancel(client, id));
+          owned.get(c).remove(id);
+        } else {
+          int size = ThreadLocalRandom.current().nextInt(THREADS * ITERATIONS);
+          r.time("resize", () -> organizerService.updateOffer(organizer, offer.getId(),
+              new OfferDtos.UpdateOfferRequest(base.eventId(), base.typeBillet(), base.prix(), size, base.dateExpiration(), false)));
+        }
+      } catch (IllegalArgumentException refused) {
+        // sold out, or a resize below the seats already sold; anything else fails the run
+      }
+    });
+    log.info("{}", run.report());
+
+    Offer after = offerRepository.findById(offer.getId()).orElseThrow();
+    long held = seatsHeld(offer.getId());
+    assertThat(after.getPlacesDisponibles()).isGreaterThanOrEqualTo(0);
+    assertThat(after.getPlacesInitiales()).isGreaterThanOrEqualTo((int) held);
+    assertThat((long) after.getPlacesDisponibles()).isEqualTo(after.getPlacesInitiales() - held);
+    assertReconciliationClean();
+    assertLatencyGate(run, "create");
+  }
+
+  private void assertReconciliationClean() throws InterruptedException {
+    reconciliation.start(false);
+    var report = reconciliation.report();
+    for (int i = 0; i < 300 && "EN_COURS".equals(report.statut()); i++) {
+      Thread.sleep(100);
+      report = reconciliation.report();
+    }
+    assertThat(report.statut()).isEqualTo("TERMINEE");
+    assertThat(report.ecarts()).isZero();
+  }
+
+  private void assertLatencyGate(StressRun run, String label) {
+    if (MAX_P99_MS > 0) assertThat(run.p99Micros(label) / 1000).isLessThanOrEqualTo(MAX_P99_MS);
+  }
+
+  private long seatsHeld(Long offerId) {
+    return reservationsOf(offerId).stream()
+        .filter(r -> r.getStatut() == ReservationStatus.CONFIRMEE || r.getStatut() == ReservationStatus.EN_ATTENTE)
+        .mapToLong(Reservation::getNbPlaces).sum();
+  }
+
+  private List<Reservation> reservationsOf(Long offerId) {
+    return reservationRepository.findAll().stream().filter(r -> r.getOffer().getId().equals(offerId)).toList();
+  }
+
+  private Offer newOffer(int capacity) {
+    return offerRepository.save(Offer.builder()
+        .event(event)
+        .typeBillet("Standard")
+        .prix(new BigDecimal("100.00"))
+        .placesInitiales(capacity)
+        .placesDisponibles(capacity)
+        .dateExpiration(LocalDate.now().plusDays(29))
+        .build());
+  }
+
+  private List<User> newClients(int count) {
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) users.add(newUser("stress-client-" + FIXTURES.get() + "-" + i));
+    return users;
+  }
+
+  private User newUser(String login) {
+    return userRepository.save(User.builder()
+        .nom("Stress").prenom(login).email(login + "@example.ma").password("x").enabled(true)
+        .dateInscription(LocalDateTime.now())
+        .build());
+  }
+}
@@ -0,0 +1,78 @@
+package ma.eventma.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Codes decode back to time and node, typos fail the check character, order holds across rollover. */
+class TimeOrderedCodeGeneratorTest {
+
+  private static final long T0 = 1_760_000_000_000L;
+  private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+  @Test
+  void codesRoundTripToTimeNodeAndSequence() {
+    String code = new TimeOrderedCodeGenerator(37, () -> T0).next();
+    assertThat(code).startsWith("RES-").hasSize(18);
+    assertThat(TimeOrderedCodeGenerator.check(code)).isTrue();
+    assertThat(TimeOrderedCodeGenerator.check(code.toLowerCase(Locale.ROOT))).isTrue();
+
+    long payload = TimeOrderedCodeGenerator.payload(code);
+    assertThat(payload >>> 22).isEqualTo(T0 - 1704067200000L);
+    assertThat((payload >>> 12) & 1023).isEqualTo(37);
+    assertThat(payload & 4095).isZero();
+  }
+
+  @Test
+  void checkCharacterRejectsSingleErrorsAndAdjacentTranspositions() {
+    String code = new TimeOrderedCodeGenerator(5, () -> T0).next();
+    for (int i = 4; i < code.length(); i++) {
+      for (char c : ALPHABET.toCharArray()) {
+        if (c == code.charAt(i)) continue;
+        String typo = code.substring(0, i) + c + code.substring(i + 1);
+        assertThat(TimeOrderedCodeGenerator.check(typo)).as(typo).isFalse();
+      }
+      if (i + 1 < code.length() && code.charAt(i) != code.charAt(i + 1)) {
+        String swapped = code.substring(0, i) + code.charAt(i + 1) + code.charAt(i) + code.substring(i + 2);
+        assertThat(TimeOrderedCodeGenerator.check(swapped)).as(swapped).isFalse();
+      }
+    }
+    assertThat(TimeOrderedCodeGenerator.check("ABC-" + code.substring(4))).isFalse();
+    assertThat(TimeOrderedCodeGenerator.check(code.substring(1))).isFalse();
+    assertThat(TimeOrderedCodeGenerator.check(null)).isFalse();
+  }
+
+  @Test
+  void codesIncreaseThroughSequenceRolloverAndClockGoingBack() {
+    long[] now = {T0};
+    TimeOrderedCodeGenerator generator = new TimeOrderedCodeGenerator(1, () -> now[0]);
+    List<String> codes = new ArrayList<>();
+    // more than 4096 codes in one millisecond: the sequence borrows the next one
+    for (int i = 0; i < 10_000; i++) codes.add(generator.next());
+    now[0] = T0 - 1000;
+    for (int i = 0; i < 10; i++) codes.add(generator.next());
+    now[0] = T0 + 10_000;
+    codes.add(generator.next());
+
+    for (int i = 1; i < codes.size(); i++) {
+      assertThat(codes.get(i)).isGreaterThan(codes.get(i - 1));
+      assertThat(TimeOrderedCodeGenerator.payload(codes.get(i))).isGreaterThan(TimeOrderedCodeGenerator.payload(codes.get(i - 1)));
+    }
+    assertThat(TimeOrderedCodeGenerator.payload(codes.get(4096)) >>> 22).isEqualTo(T0 - 1704067200000L + 1);
+  }
+
+  @Test
+  void nodeIdIsRequiredOutsideDev() {
+    assertThatThrownBy(() -> new TimeOrderedCodeGenerator(-1, new MockEnvironment())).isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> new TimeOrderedCodeGenerator(1024, new MockEnvironment())).isInstanceOf(IllegalStateException.class);
+    MockEnvironment dev = new MockEnvironment();
+    dev.setActiveProfiles("dev");
+    assertThat(TimeOrderedCodeGenerator.check(new TimeOrderedCodeGenerator(-1, dev).next())).isTrue();
+  }
+}
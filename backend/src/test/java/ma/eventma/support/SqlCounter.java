@@ -0,0 +1,26 @@
+package ma.eventma.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the calling thread, so scheduled jobs
+ * running in the same context do not skew the numbers.
+ */
+public class SqlCounter implements StatementInspector {
+
+  private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+  @Override
+  public String inspect(String sql) {
+    COUNT.get()[0]++;
+    return sql;
+  }
+
+  public static void reset() {
+    COUNT.get()[0] = 0;
+  }
+
+  public static int count() {
+    return COUNT.get()[0];
+  }
+}
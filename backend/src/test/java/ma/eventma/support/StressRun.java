@@ -0,0 +1,119 @@
+package ma.eventma.support;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the same body from many threads released at once, and records per-operation
+ * latency histograms and outcome counters for the final report.
+ */
+public final class StressRun {
+
+  @FunctionalInterface
+  public interface Body {
+    void run(int thread, int iteration, StressRun run) throws Exception;
+  }
+
+  private final String name;
+  private final Map<String, Recorder> latencies = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> snapshots = new ConcurrentHashMap<>();
+  private long elapsedNanos;
+
+  public StressRun(String name) {
+    this.name = name;
+  }
+
+  public void execute(int threads, int iterations, Body body) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      futures.add(pool.submit(() -> {
+        start.await();
+        for (int i = 0; i < iterations; i++) body.run(thread, i, this);
+        return null;
+      }));
+    }
+    long t0 = System.nanoTime();
+    start.countDown();
+    try {
+      for (Future<?> f : futures) f.get(5, TimeUnit.MINUTES);
+    } finally {
+      elapsedNanos = System.nanoTime() - t0;
+      pool.shutdownNow();
+    }
+  }
+
+  /** Times {@code op} under {@code label}; the outcome is counted as {@code label.ok} or {@code label.<exception>}. */
+  public <T> T time(String label, Op<T> op) throws Exception {
+    long t0 = System.nanoTime();
+    try {
+      T v = op.call();
+      count(label + ".ok");
+      return v;
+    } catch (Exception ex) {
+      count(label + "." + ex.getClass().getSimpleName());
+      throw ex;
+    } finally {
+      latencies.computeIfAbsent(label, k -> new Recorder(3)).recordValue((System.nanoTime() - t0) / 1000);
+    }
+  }
+
+  @FunctionalInterface
+  public interface Op<T> {
+    T call() throws Exception;
+  }
+
+  public void count(String key) {
+    counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+  }
+
+  public long counter(String key) {
+    LongAdder a = counters.get(key);
+    return a == null ? 0 : a.sum();
+  }
+
+  public long total(String label) {
+    return counters.entrySet().stream().filter(e -> e.getKey().startsWith(label + "."))
+        .mapToLong(e -> e.getValue().sum()).sum();
+  }
+
+  /** p99 latency in microseconds for {@code label}, over the whole run; call once the run is over. */
+  public long p99Micros(String label) {
+    return latencies.containsKey(label) ? snapshot(label).getValueAtPercentile(99) : 0;
+  }
+
+  private Histogram snapshot(String label) {
+    return snapshots.computeIfAbsent(label, k -> latencies.get(k).getIntervalHistogram());
+  }
+
+  public String report() {
+    double seconds = elapsedNanos / 1e9;
+    long ops = latencies.keySet().stream().mapToLong(this::total).sum();
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%n== %s: %d ops in %.2f s, %.0f ops/s%n", name, ops, seconds, ops / seconds));
+    sb.append(String.format("%-12s %8s %9s %9s %9s %9s %9s%n", "op", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+    latencies.keySet().stream().sorted().forEach(label -> {
+      Histogram h = snapshot(label);
+      sb.append(String.format("%-12s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, h.getTotalCount(),
+          h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+          h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0));
+    });
+    counters.entrySet().stream().sorted(Map.Entry.comparingByKey())
+        .forEach(e -> sb.append(String.format("  %-40s %d%n", e.getKey(), e.getValue().sum())));
+    return sb.toString();
+  }
+}
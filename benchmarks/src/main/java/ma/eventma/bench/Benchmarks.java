@@ -0,0 +1,53 @@
+package ma.eventma.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the selected benchmarks once per thread count, in throughput mode with the GC profiler
+ * (allocation rate and bytes per operation). Arguments are include regexes (default: all).
+ * <pre>
+ *   -Dbench.threads=1,4,16      thread counts
+ *   -Dbench.events=1000,10000   seeded dataset sizes
+ *   -Dbench.forks=1 -Dbench.warmup=3 -Dbench.iterations=5 -Dbench.seconds=2
+ * </pre>
+ * Results go to {@code target/jmh-<threads>t.json}.
+ */
+public final class Benchmarks {
+
+  private Benchmarks() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    String[] threads = System.getProperty("bench.threads", "1,4,16").split(",");
+    String[] events = System.getProperty("bench.events", "1000,10000").split(",");
+    TimeValue period = TimeValue.seconds(Long.getLong("bench.seconds", 2));
+
+    for (String t : threads) {
+      ChainedOptionsBuilder opts = new OptionsBuilder()
+          .mode(Mode.Throughput)
+          .threads(Integer.parseInt(t.trim()))
+          .param("events", events)
+          .forks(Integer.getInteger("bench.forks", 1))
+          .warmupIterations(Integer.getInteger("bench.warmup", 3))
+          .warmupTime(period)
+          .measurementIterations(Integer.getInteger("bench.iterations", 5))
+          .measurementTime(period)
+          .timeUnit(TimeUnit.SECONDS)
+          .addProfiler(GCProfiler.class)
+          .jvmArgsAppend("-Xmx2g")
+          .resultFormat(ResultFormatType.JSON)
+          .result("target/jmh-" + t.trim() + "t.json");
+      if (args.length == 0) opts.include(Benchmarks.class.getPackageName() + ".*Benchmark");
+      for (String include : args) opts.include(include);
+      new Runner(opts.build()).run();
+    }
+  }
+}
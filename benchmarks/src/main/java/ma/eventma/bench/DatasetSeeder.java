@@ -0,0 +1,118 @@
+package ma.eventma.bench;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk-inserts a deterministic dataset through JDBC batches: organizers, clients, published events
+ * spread over the seeded categories and regions, offers with room to sell, and confirmed reservations.
+ */
+public class DatasetSeeder {
+
+  public record Dataset(List<Long> organizerIds, List<Long> clientIds, List<Long> eventIds, List<Long> offerIds,
+                        List<Long> categoryIds, List<Long> regionIds) {}
+
+  static final int ORGANIZERS = 10;
+  static final int CLIENTS = 200;
+  static final int BATCH = 1000;
+
+  private static final String[] KINDS = {"Festival", "Concert", "Match", "Salon", "Spectacle", "Conférence", "Exposition"};
+  private static final String[] CITIES = {"Casablanca", "Rabat", "Marrakech", "Tanger", "Fès", "Agadir", "Essaouira", "Oujda"};
+
+  private final JdbcTemplate jdbc;
+  private final SplittableRandom random = new SplittableRandom(42);
+
+  public DatasetSeeder(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  public Dataset seed(int events, int offersPerEvent, int reservationsPerOffer) {
+    List<Long> categories = jdbc.queryForList("SELECT id FROM categories ORDER BY id", Long.class);
+    List<Long> regions = jdbc.queryForList("SELECT id FROM regions ORDER BY id", Long.class);
+
+    List<Object[]> users = new ArrayList<>();
+    for (int i = 0; i < ORGANIZERS; i++) users.add(user("bench-org-" + i));
+    for (int i = 0; i < CLIENTS; i++) users.add(user("bench-client-" + i));
+    jdbc.batchUpdate("INSERT INTO users (nom, prenom, email, password, enabled, date_inscription) VALUES (?, ?, ?, ?, TRUE, ?)", users);
+    List<Long> organizers = jdbc.queryForList("SELECT id FROM users WHERE email LIKE 'bench-org-%' ORDER BY id", Long.class);
+    List<Long> clients = jdbc.queryForList("SELECT id FROM users WHERE email LIKE 'bench-client-%' ORDER BY id", Long.class);
+
+    // offer summary columns start empty; SeededApp recomputes them once the offers exist
+    String insertEvent = "INSERT INTO events (id, titre, description, date_event, heure_debut, lieu, nb_vues, statut, categorie_id, region_id, organisateur_id,"
+        + " places_restantes, complet, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, FALSE, ?, ?)";
+    long firstEvent = nextId("events");
+    List<Object[]> rows = new ArrayList<>();
+    LocalDate today = LocalDate.now();
+    for (int i = 0; i < events; i++) {
+      String kind = KINDS[random.nextInt(KINDS.length)];
+      String city = CITIES[random.nextInt(CITIES.length)];
+      rows.add(new Object[]{firstEvent + i, kind + " " + city + " " + i, kind + " à " + city, Date.valueOf(today.plusDays(2 + random.nextInt(365))),
+          Time.valueOf(LocalTime.of(10 + random.nextInt(12), 0)), city, random.nextInt(10_000), "PUBLIE",
+          categories.get(i % categories.size()), regions.get(random.nextInt(regions.size())), organizers.get(i % organizers.size()),
+          Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now())});
+      if (rows.size() == BATCH) flush(insertEvent, rows);
+    }
+    flush(insertEvent, rows);
+
+    // a million seats per offer: the create benchmark never sells out
+    long firstOffer = nextId("offers");
+    int capacity = 1_000_000;
+    long offerId = firstOffer;
+    List<Object[]> reservations = new ArrayList<>();
+    long code = 0;
+    for (int e = 0; e < events; e++) {
+      for (int o = 0; o < offersPerEvent; o++, offerId++) {
+        BigDecimal prix = BigDecimal.valueOf(50L * (o + 1));
+        rows.add(new Object[]{offerId, o == 0 ? "Standard" : "VIP " + o, prix, capacity, capacity - reservationsPerOffer,
+            Date.valueOf(today.plusDays(1)), firstEvent + e});
+        for (int r = 0; r < reservationsPerOffer; r++) {
+          reservations.add(new Object[]{"BENCH-" + code++, Timestamp.valueOf(LocalDateTime.now()), 1, prix, "CONFIRMEE",
+              clients.get(random.nextInt(clients.size())), offerId});
+        }
+        if (rows.size() >= BATCH || reservations.size() >= BATCH) flushOffers(rows, reservations);
+      }
+    }
+    flushOffers(rows, reservations);
+    jdbc.execute("ALTER TABLE events ALTER COLUMN id RESTART WITH " + (firstEvent + events));
+    jdbc.execute("ALTER TABLE offers ALTER COLUMN id RESTART WITH " + offerId);
+
+    return new Dataset(organizers, clients, range(firstEvent, events), range(firstOffer, (int) (offerId - firstOffer)), categories, regions);
+  }
+
+  private Object[] user(String login) {
+    return new Object[]{"Bench", login, login + "@example.ma", "x", Timestamp.valueOf(LocalDateTime.now())};
+  }
+
+  private long nextId(String table) {
+    Long max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+    return max == null ? 1 : max + 1;
+  }
+
+  /** Offers first: reservations reference them. */
+  private void flushOffers(List<Object[]> offers, List<Object[]> reservations) {
+    flush("INSERT INTO offers (id, type_billet, prix, places_initiales, places_disponibles, date_expiration, event_id) VALUES (?, ?, ?, ?, ?, ?, ?)", offers);
+    flush("INSERT INTO reservations (code_reservation, date_reservation, nb_places, montant_total, statut, user_id, offer_id) VALUES (?, ?, ?, ?, ?, ?, ?)", reservations);
+  }
+
+  private void flush(String sql, List<Object[]> rows) {
+    if (rows.isEmpty()) return;
+    jdbc.batchUpdate(sql, rows);
+    rows.clear();
+  }
+
+  private static List<Long> range(long first, int count) {
+    List<Long> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) ids.add(first + i);
+    return ids;
+  }
+}
@@ -0,0 +1,70 @@
+package ma.eventma.bench;
+
+import ma.eventma.model.Event;
+import ma.eventma.repository.EventRepository;
+import ma.eventma.service.EventService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class EventServiceBenchmark {
+
+  static final int SAMPLE = 100;
+
+  @State(Scope.Benchmark)
+  public static class Loaded {
+    EventService service;
+    List<Event> sample;
+    Long regionId;
+    Long categoryId;
+
+    @Setup(Level.Trial)
+    public void load(SeededApp app) {
+      service = app.bean(EventService.class);
+      sample = app.bean(EventRepository.class).findAll(PageRequest.ofSize(SAMPLE)).getContent();
+      regionId = app.dataset.regionIds().get(0);
+      categoryId = app.dataset.categoryIds().get(0);
+    }
+  }
+
+  @Benchmark
+  public Object searchAll(Loaded s) {
+    return s.service.search(null, null, null, null, null, "date_asc");
+  }
+
+  @Benchmark
+  public Object searchText(Loaded s) {
+    return s.service.search("festival", null, null, null, null, "views");
+  }
+
+  @Benchmark
+  public Object searchFiltered(Loaded s) {
+    LocalDate today = LocalDate.now();
+    return s.service.search(null, s.regionId, s.categoryId, today, today.plusDays(90), "date_asc");
+  }
+
+  @Benchmark
+  public Object suggest(Loaded s) {
+    return s.service.suggest("cas", 8);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SAMPLE)
+  public void toSummary(Loaded s, Blackhole bh) {
+    for (Event e : s.sample) bh.consume(EventService.toSummary(e));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SAMPLE)
+  public void toDetail(Loaded s, Blackhole bh) {
+    for (Event e : s.sample) bh.consume(EventService.toDetail(e));
+  }
+}
@@ -0,0 +1,32 @@
+package ma.eventma.bench;
+
+import ma.eventma.security.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+
+/** Pure CPU path: no application context or database needed. */
+public class JwtServiceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Tokens {
+    JwtService service;
+    String token;
+
+    @Setup(Level.Trial)
+    public void create() {
+      service = new JwtService("ChangeMeToAStrongSecretKey_AtLeast_32_Chars_Long", 120);
+      token = service.generateToken("client@example.ma", Map.of("roles", List.of("CLIENT")));
+    }
+  }
+
+  @Benchmark
+  public String extractSubject(Tokens t) {
+    return t.service.extractSubject(t.token);
+  }
+}
@@ -0,0 +1,31 @@
+package ma.eventma.bench;
+
+import ma.eventma.model.User;
+import ma.eventma.service.OrganizerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+public class OrganizerServiceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Shared {
+    OrganizerService service;
+    User organizer;
+
+    @Setup(Level.Trial)
+    public void load(SeededApp app) {
+      service = app.bean(OrganizerService.class);
+      organizer = app.users(List.of(app.dataset.organizerIds().get(0))).get(0);
+    }
+  }
+
+  @Benchmark
+  public Object overview(Shared s) {
+    return s.service.overview(s.organizer);
+  }
+}
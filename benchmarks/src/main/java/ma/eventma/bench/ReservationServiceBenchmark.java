@@ -0,0 +1,46 @@
+package ma.eventma.bench;
+
+import ma.eventma.dto.ReservationDtos;
+import ma.eventma.model.User;
+import ma.eventma.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ReservationServiceBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Shared {
+    ReservationService service;
+    List<User> clients;
+    List<Long> offerIds;
+
+    @Setup(Level.Trial)
+    public void load(SeededApp app) {
+      service = app.bean(ReservationService.class);
+      clients = app.users(app.dataset.clientIds());
+      offerIds = app.dataset.offerIds();
+    }
+  }
+
+  /** Spread over all offers: measures the create path rather than contention on one row. */
+  @Benchmark
+  public Object createSpread(Shared s) {
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    User client = s.clients.get(rnd.nextInt(s.clients.size()));
+    Long offerId = s.offerIds.get(rnd.nextInt(s.offerIds.size()));
+    return s.service.create(client, new ReservationDtos.CreateReservationRequest(offerId, 1));
+  }
+
+  /** Every thread on the same offer, as during an on-sale. */
+  @Benchmark
+  public Object createHotOffer(Shared s) {
+    User client = s.clients.get(ThreadLocalRandom.current().nextInt(s.clients.size()));
+    return s.service.create(client, new ReservationDtos.CreateReservationRequest(s.offerIds.get(0), 1));
+  }
+}
@@ -0,0 +1,68 @@
+package ma.eventma.bench;
+
+import ma.eventma.EventmaApplication;
+import ma.eventma.model.User;
+import ma.eventma.repository.UserRepository;
+import ma.eventma.search.EventIndexer;
+import ma.eventma.service.EventAvailability;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/** The whole application on an embedded H2 database (MySQL mode), seeded once per trial. */
+@State(Scope.Benchmark)
+public class SeededApp {
+
+  @Param({"1000"})
+  public int events;
+
+  @Param({"3"})
+  public int offersPerEvent;
+
+  @Param({"5"})
+  public int reservationsPerOffer;
+
+  public ConfigurableApplicationContext context;
+  public DatasetSeeder.Dataset dataset;
+
+  @Setup(Level.Trial)
+  public void start() {
+    // command-line arguments, so they win over the MySQL settings in application.yml
+    context = new SpringApplicationBuilder(EventmaApplication.class).run(
+        "--server.port=0",
+        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "--spring.jpa.hibernate.ddl-auto=create-drop",
+        "--spring.jpa.properties.hibernate.format_sql=false",
+        "--logging.level.root=WARN",
+        "--app.reservation-code.node-id=0");
+    dataset = new DatasetSeeder(context.getBean(JdbcTemplate.class)).seed(events, offersPerEvent, reservationsPerOffer);
+    // offer summaries (prices, seats left) of the raw rows above, then the in-memory search indexes,
+    // which were loaded at startup before these rows existed
+    bean(EventAvailability.class).repairAll();
+    bean(EventIndexer.class).rebuild();
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+  }
+
+  public <T> T bean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  public List<User> users(List<Long> ids) {
+    return bean(UserRepository.class).findAllById(ids);
+  }
+}
@@ -74,6 +74,11 @@ CREATE TABLE IF NOT EXISTS events (
     nb_vues INT DEFAULT 0,
     statut ENUM('BROUILLON', 'PUBLIE', 'ANNULE') DEFAULT 'BROUILLON',
 
+    prix_min DECIMAL(10,2),
+    prix_max DECIMAL(10,2),
+    places_restantes INT NOT NULL DEFAULT 0,
+    complet BOOLEAN NOT NULL DEFAULT FALSE,
+
     categorie_id BIGINT NOT NULL,
     region_id BIGINT NOT NULL,
     organisateur_id BIGINT NOT NULL,
@@ -88,7 +93,11 @@ CREATE TABLE IF NOT EXISTS events (
         FOREIGN KEY (region_id) REFERENCES regions(id),
 
     CONSTRAINT fk_event_organisateur
-        FOREIGN KEY (organisateur_id) REFERENCES users(id)
+        FOREIGN KEY (organisateur_id) REFERENCES users(id),
+
+    INDEX idx_events_statut_prix_min (statut, prix_min),
+    INDEX idx_events_statut_prix_max (statut, prix_max),
+    INDEX idx_events_statut_places_restantes (statut, places_restantes)
 );
 
 -- ============================
@@ -101,6 +110,7 @@ CREATE TABLE IF NOT EXISTS offers (
     places_initiales INT NOT NULL,
     places_disponibles INT NOT NULL,
     date_expiration DATE NOT NULL,
+    file_attente BOOLEAN NOT NULL DEFAULT FALSE,
 
     event_id BIGINT NOT NULL,
 
@@ -118,10 +128,13 @@ CREATE TABLE IF NOT EXISTS reservations (
     nb_places INT NOT NULL,
     montant_total DECIMAL(10,2) NOT NULL,
     statut ENUM('EN_ATTENTE', 'CONFIRMEE', 'ANNULEE') DEFAULT 'EN_ATTENTE',
+    expire_le DATETIME,
 
     user_id BIGINT NOT NULL,
     offer_id BIGINT NOT NULL,
 
+    INDEX idx_reservations_statut (statut),
+
     CONSTRAINT fk_reservation_user
         FOREIGN KEY (user_id) REFERENCES users(id),
 
@@ -138,9 +151,57 @@ CREATE TABLE IF NOT EXISTS statistiques (
     nb_vues INT DEFAULT 0,
     nb_reservations INT DEFAULT 0,
     chiffre_affaires DECIMAL(12,2) DEFAULT 0,
+    nb_visiteurs INT DEFAULT 0,
+    visiteurs VARBINARY(4096),
 
     event_id BIGINT NOT NULL,
 
     CONSTRAINT fk_stat_event
-        FOREIGN KEY (event_id) REFERENCES events(id)
+        FOREIGN KEY (event_id) REFERENCES events(id),
+    CONSTRAINT uk_stat_event_jour
+        UNIQUE (event_id, date_consultation)
+);
+
+-- ============================
+-- TABLE: visiteurs_organisateur
+-- ============================
+CREATE TABLE IF NOT EXISTS visiteurs_organisateur (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    date_consultation DATE NOT NULL,
+    visiteurs VARBINARY(4096),
+
+    organisateur_id BIGINT NOT NULL,
+
+    CONSTRAINT fk_visiteurs_org_user
+        FOREIGN KEY (organisateur_id) REFERENCES users(id),
+    CONSTRAINT uk_visiteurs_org_jour
+        UNIQUE (organisateur_id, date_consultation)
+);
+
+-- ============================
+-- TABLE: idempotency_keys
+-- ============================
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    cle VARCHAR(100) NOT NULL,
+    empreinte VARCHAR(64),
+    reponse TEXT NOT NULL,
+    created_at DATETIME NOT NULL,
+
+    CONSTRAINT uk_idempotency_user_cle UNIQUE (user_id, cle),
+    INDEX idx_idempotency_created_at (created_at)
+);
+
+-- ============================
+-- TABLE: outbox_events
+-- ============================
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(30) NOT NULL,
+    event_id BIGINT NOT NULL,
+    nb INT NOT NULL,
+    montant DECIMAL(12,2) NOT NULL,
+    date_stat DATE NOT NULL,
+    created_at DATETIME NOT NULL
 );